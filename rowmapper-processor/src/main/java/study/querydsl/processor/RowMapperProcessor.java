@@ -0,0 +1,146 @@
+package study.querydsl.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @QueryProjection 생성자마다 같은 순서의 컬럼을 위치로 읽는 Spring JDBC RowMapper ({Dto}RowMapper) 를 생성한다.
+ * 네이티브 SQL 은 생성자 파라미터 순서대로 컬럼을 select 해야 한다.
+ */
+@SupportedAnnotationTypes(RowMapperProcessor.QUERY_PROJECTION)
+public class RowMapperProcessor extends AbstractProcessor {
+
+    static final String QUERY_PROJECTION = "com.querydsl.core.annotations.QueryProjection";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CONSTRUCTOR) {
+                    generate((ExecutableElement) element);
+                }
+            }
+        }
+        //QueryProjection 은 querydsl-apt 도 처리해야 하므로 소유하지 않는다
+        return false;
+    }
+
+    private void generate(ExecutableElement constructor) {
+        TypeElement dto = (TypeElement) constructor.getEnclosingElement();
+        String dtoName = dto.getSimpleName().toString();
+        String packageName = processingEnv.getElementUtils().getPackageOf(dto).getQualifiedName().toString();
+        String mapperName = dtoName + "RowMapper";
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+
+        if (dto.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+            warn(constructor, "중첩 클래스는 RowMapper 를 생성하지 않습니다.");
+            return;
+        }
+        if (!generated.add(qualifiedMapperName)) {
+            warn(constructor, mapperName + " 는 첫 번째 @QueryProjection 생성자로 이미 생성되었습니다.");
+            return;
+        }
+
+        List<? extends VariableElement> parameters = constructor.getParameters();
+        StringBuilder reads = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            String read = readExpression(parameters.get(i).asType(), i + 1);
+            if (read == null) {
+                warn(parameters.get(i), parameters.get(i).asType() + " 타입은 RowMapper 로 읽을 수 없어 " + mapperName + " 를 생성하지 않습니다.");
+                return;
+            }
+            reads.append("        ").append(read).append('\n');
+            arguments.append(i == 0 ? "" : ", ").append("c").append(i + 1);
+        }
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedMapperName, dto).openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("import java.sql.ResultSet;\n");
+            writer.write("import java.sql.SQLException;\n");
+            writer.write("import org.springframework.jdbc.core.RowMapper;\n\n");
+            writer.write("/**\n * " + dtoName + " 의 @QueryProjection 생성자 파라미터 순서대로 컬럼을 읽는다. (" + getClass().getSimpleName() + " 생성)\n */\n");
+            writer.write("public final class " + mapperName + " implements RowMapper<" + dtoName + "> {\n\n");
+            writer.write("    public static final " + mapperName + " INSTANCE = new " + mapperName + "();\n");
+            writer.write("    public static final int COLUMN_COUNT = " + parameters.size() + ";\n\n");
+            writer.write("    private " + mapperName + "() {\n    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public " + dtoName + " mapRow(ResultSet rs, int rowNum) throws SQLException {\n");
+            writer.write(reads.toString());
+            writer.write("        return new " + dtoName + "(" + arguments + ");\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, mapperName + " 생성 실패: " + e.getMessage(), constructor);
+        }
+    }
+
+    private String readExpression(TypeMirror type, int column) {
+        String variable = "c" + column;
+        switch (type.getKind()) {
+            case INT:
+                return "int " + variable + " = rs.getInt(" + column + ");";
+            case LONG:
+                return "long " + variable + " = rs.getLong(" + column + ");";
+            case DOUBLE:
+                return "double " + variable + " = rs.getDouble(" + column + ");";
+            case FLOAT:
+                return "float " + variable + " = rs.getFloat(" + column + ");";
+            case SHORT:
+                return "short " + variable + " = rs.getShort(" + column + ");";
+            case BYTE:
+                return "byte " + variable + " = rs.getByte(" + column + ");";
+            case BOOLEAN:
+                return "boolean " + variable + " = rs.getBoolean(" + column + ");";
+            case DECLARED:
+                return readDeclared((DeclaredType) type, variable, column);
+            default:
+                return null;
+        }
+    }
+
+    private String readDeclared(DeclaredType type, String variable, int column) {
+        TypeElement element = (TypeElement) type.asElement();
+        String name = processingEnv.getTypeUtils().erasure(type).toString();
+        if (!type.getTypeArguments().isEmpty()) {
+            return null;
+        }
+        if (name.equals("java.lang.String")) {
+            return "String " + variable + " = rs.getString(" + column + ");";
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            String raw = variable + "Name";
+            return "String " + raw + " = rs.getString(" + column + ");\n        "
+                    + name + " " + variable + " = " + raw + " == null ? null : " + name + ".valueOf(" + raw + ");";
+        }
+        return name + " " + variable + " = rs.getObject(" + column + ", " + name + ".class);";
+    }
+
+    private void warn(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+}
@@ -0,0 +1,186 @@
+package study.querydsl.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * long 키별로 int 값의 count/sum/min/max 를 누적하는 open addressing 해시맵.
+ * 키와 누적값을 원시 배열에 두므로 add() 에서 박싱이나 엔트리 객체 생성이 없다.
+ * int 키(나이 등)는 long 으로 넓혀서 그대로 쓴다.
+ */
+public class LongIntStatsMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean[] used;
+    private long[] counts;
+    private long[] sums;
+    private int[] mins;
+    private int[] maxs;
+    private int size;
+
+    public LongIntStatsMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntStatsMap(int expectedKeys) {
+        allocate(tableSizeFor(expectedKeys));
+    }
+
+    public void add(long key, int value) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+        counts[slot]++;
+        sums[slot] += value;
+        mins[slot] = Math.min(mins[slot], value);
+        maxs[slot] = Math.max(maxs[slot], value);
+    }
+
+    public void merge(LongIntStatsMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (!other.used[i]) {
+                continue;
+            }
+            int slot = slotOf(other.keys[i]);
+            if (!used[slot]) {
+                slot = insert(slot, other.keys[i]);
+            }
+            counts[slot] += other.counts[i];
+            sums[slot] += other.sums[i];
+            mins[slot] = Math.min(mins[slot], other.mins[i]);
+            maxs[slot] = Math.max(maxs[slot], other.maxs[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return used[slotOf(key)];
+    }
+
+    public long count(long key) {
+        int slot = slotOf(key);
+        return used[slot] ? counts[slot] : 0;
+    }
+
+    public long sum(long key) {
+        int slot = slotOf(key);
+        return used[slot] ? sums[slot] : 0;
+    }
+
+    public int min(long key) {
+        return mins[requireSlot(key)];
+    }
+
+    public int max(long key) {
+        return maxs[requireSlot(key)];
+    }
+
+    public double average(long key) {
+        int slot = slotOf(key);
+        return used[slot] ? (double) sums[slot] / counts[slot] : 0;
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[index++] = keys[i];
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    public void forEach(StatsConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], counts[i], sums[i], mins[i], maxs[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface StatsConsumer {
+        void accept(long key, long count, long sum, int min, int max);
+    }
+
+    private int requireSlot(long key) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            throw new IllegalArgumentException("집계된 키가 아닙니다. key = " + key);
+        }
+        return slot;
+    }
+
+    //키가 있으면 그 슬롯, 없으면 들어갈 빈 슬롯
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int insert(int slot, long key) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            slot = slotOf(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        mins[slot] = Integer.MAX_VALUE;
+        maxs[slot] = Integer.MIN_VALUE;
+        size++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        int[] oldMins = mins;
+        int[] oldMaxs = maxs;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                sums[slot] = oldSums[i];
+                mins[slot] = oldMins[i];
+                maxs[slot] = oldMaxs[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        counts = new long[capacity];
+        sums = new long[capacity];
+        mins = new int[capacity];
+        maxs = new int[capacity];
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedKeys) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedKeys * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
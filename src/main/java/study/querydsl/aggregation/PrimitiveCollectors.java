@@ -0,0 +1,25 @@
+package study.querydsl.aggregation;
+
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() {
+    }
+
+    //groupingBy(key, summarizingInt(value)) 와 같은 결과를 박싱된 키/값 없이 만든다
+    public static <T> Collector<T, ?, LongIntStatsMap> intStatsByLongKey(ToLongFunction<? super T> keyMapper,
+                                                                          ToIntFunction<? super T> valueMapper) {
+        return Collector.of(
+                LongIntStatsMap::new,
+                (stats, element) -> stats.add(keyMapper.applyAsLong(element), valueMapper.applyAsInt(element)),
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH,
+                Collector.Characteristics.UNORDERED);
+    }
+}
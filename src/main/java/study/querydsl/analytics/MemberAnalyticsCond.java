@@ -0,0 +1,22 @@
+package study.querydsl.analytics;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import study.querydsl.domain.MemberRole;
+
+import java.time.LocalDateTime;
+
+@Data
+public class MemberAnalyticsCond {
+
+    private Long teamId;
+    private MemberRole memberRole;
+    private Integer ageGoe;
+    private Integer ageLoe;
+
+    //createdFrom 이상, createdTo 미만
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+}
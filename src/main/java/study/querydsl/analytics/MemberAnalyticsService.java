@@ -0,0 +1,107 @@
+package study.querydsl.analytics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.outbox.MemberChangeBatchEvent;
+import study.querydsl.outbox.MemberChangeSubscriber;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * OLTP 테이블 대신 주기적으로 새로 만든 {@link MemberColumnarSnapshot} 에서 나이 분포, 팀별 리포트를 계산한다.
+ * 적재는 Hibernate 를 거치지 않고 JDBC 로 한 번 읽어 온다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberAnalyticsService implements MemberChangeSubscriber {
+
+    private static final String COUNT_SQL = "select count(*) from member";
+    private static final String SNAPSHOT_SQL =
+            "select member_id, team_id, age, member_role, create_date from member order by team_id, member_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile MemberColumnarSnapshot snapshot = MemberColumnarSnapshot.empty();
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    public MemberColumnarSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    @Override
+    public String getName() {
+        return "member-analytics";
+    }
+
+    //outbox 로 변경이 발행된 경우에만 주기적으로 다시 만든다
+    @Override
+    public void onChanges(MemberChangeBatchEvent batch) {
+        changed.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${member.analytics.refresh-interval-ms:60000}",
+            initialDelayString = "${member.analytics.refresh-interval-ms:60000}")
+    public void refreshIfChanged() {
+        if (changed.getAndSet(false)) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        Integer expectedRows = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class);
+        MemberColumnarSnapshot.Builder builder = new MemberColumnarSnapshot.Builder(expectedRows != null ? expectedRows : 0);
+
+        jdbcTemplate.query(SNAPSHOT_SQL, rs -> {
+            long teamId = rs.getLong("team_id");
+            if (rs.wasNull()) {
+                teamId = MemberColumnarSnapshot.NULL_ID;
+            }
+            String memberRole = rs.getString("member_role");
+            Timestamp createDate = rs.getTimestamp("create_date");
+            builder.add(
+                    rs.getLong("member_id"),
+                    teamId,
+                    rs.getInt("age"),
+                    memberRole != null ? (byte) MemberRole.valueOf(memberRole).ordinal() : MemberColumnarSnapshot.NULL_ROLE,
+                    createDate != null ? createDate.getTime() : MemberColumnarSnapshot.NULL_DATE);
+        });
+
+        snapshot = builder.build(LocalDateTime.now());
+        log.info("member analytics snapshot refreshed. rows = {}", snapshot.getRowCount());
+    }
+
+    public long count(MemberAnalyticsCond cond) {
+        return snapshot.count(cond);
+    }
+
+    public double averageAge(MemberAnalyticsCond cond) {
+        return snapshot.averageAge(cond);
+    }
+
+    public long[] ageHistogram(MemberAnalyticsCond cond, int bucketWidth) {
+        return snapshot.ageHistogram(cond, bucketWidth);
+    }
+
+    public int agePercentile(MemberAnalyticsCond cond, double percentile) {
+        return snapshot.agePercentile(cond, percentile);
+    }
+
+    public List<TeamAgeSummary> summarizeByTeam(MemberAnalyticsCond cond) {
+        return snapshot.summarizeByTeam(cond);
+    }
+}
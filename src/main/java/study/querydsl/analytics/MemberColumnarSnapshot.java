@@ -0,0 +1,254 @@
+package study.querydsl.analytics;
+
+import lombok.Getter;
+import study.querydsl.domain.MemberRole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * (member_id, team_id, age, member_role, create_date) 를 컬럼별 direct ByteBuffer 에 담은 읽기 전용 스냅샷.
+ * 집계는 버퍼를 인덱스로 직접 읽으므로 행마다 객체를 만들지 않는다.
+ * 행은 (team_id, member_id) 순으로 적재되어 같은 팀의 행이 연속해 있다.
+ */
+public class MemberColumnarSnapshot {
+
+    static final long NULL_ID = -1L;
+    static final byte NULL_ROLE = -1;
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private static final MemberRole[] ROLES = MemberRole.values();
+
+    @Getter
+    private final int rowCount;
+    @Getter
+    private final LocalDateTime refreshedAt;
+    @Getter
+    private final int maxAge;
+
+    private final LongBuffer memberIds;
+    private final LongBuffer teamIds;
+    private final IntBuffer ages;
+    private final ByteBuffer roles;
+    private final LongBuffer createDates;
+
+    private MemberColumnarSnapshot(Builder builder, LocalDateTime refreshedAt) {
+        this.rowCount = builder.rowCount;
+        this.refreshedAt = refreshedAt;
+        this.maxAge = builder.maxAge;
+        this.memberIds = allocateLongs(rowCount).put(builder.memberIds, 0, rowCount).flip();
+        this.teamIds = allocateLongs(rowCount).put(builder.teamIds, 0, rowCount).flip();
+        this.ages = allocate(rowCount * Integer.BYTES).asIntBuffer().put(builder.ages, 0, rowCount).flip();
+        this.roles = allocate(rowCount).put(builder.roles, 0, rowCount).flip();
+        this.createDates = allocateLongs(rowCount).put(builder.createDates, 0, rowCount).flip();
+    }
+
+    public static MemberColumnarSnapshot empty() {
+        return new Builder(0).build(LocalDateTime.now());
+    }
+
+    public long count(MemberAnalyticsCond cond) {
+        Filter filter = new Filter(cond);
+        long count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (filter.matches(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double averageAge(MemberAnalyticsCond cond) {
+        Filter filter = new Filter(cond);
+        long sum = 0;
+        long count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (filter.matches(row)) {
+                sum += ages.get(row);
+                count++;
+            }
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    //index 0 은 [0, bucketWidth), index 1 은 [bucketWidth, 2 * bucketWidth) ... 구간의 인원 수
+    public long[] ageHistogram(MemberAnalyticsCond cond, int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth 는 1 이상이어야 합니다.");
+        }
+        Filter filter = new Filter(cond);
+        long[] buckets = new long[maxAge / bucketWidth + 1];
+        for (int row = 0; row < rowCount; row++) {
+            if (filter.matches(row)) {
+                buckets[Math.max(ages.get(row), 0) / bucketWidth]++;
+            }
+        }
+        return buckets;
+    }
+
+    //팀별로 행이 모여 있으므로 한 번 훑으면서 팀이 바뀔 때마다 결과를 만든다
+    public List<TeamAgeSummary> summarizeByTeam(MemberAnalyticsCond cond) {
+        Filter filter = new Filter(cond);
+        List<TeamAgeSummary> summaries = new ArrayList<>();
+        int row = 0;
+        while (row < rowCount) {
+            long teamId = teamIds.get(row);
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (; row < rowCount && teamIds.get(row) == teamId; row++) {
+                if (filter.matches(row)) {
+                    int age = ages.get(row);
+                    count++;
+                    sum += age;
+                    min = Math.min(min, age);
+                    max = Math.max(max, age);
+                }
+            }
+            if (count > 0) {
+                summaries.add(new TeamAgeSummary(teamId == NULL_ID ? null : teamId, count, (double) sum / count, min, max));
+            }
+        }
+        return summaries;
+    }
+
+    //나이는 범위가 작으므로 정렬 대신 나이별 도수로 nearest-rank 백분위를 구한다
+    public int agePercentile(MemberAnalyticsCond cond, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile 은 0 ~ 100 사이여야 합니다.");
+        }
+        long[] frequencies = ageHistogram(cond, 1);
+        long total = 0;
+        for (long frequency : frequencies) {
+            total += frequency;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int age = 0; age < frequencies.length; age++) {
+            seen += frequencies[age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return maxAge;
+    }
+
+    //조건을 한 번만 원시값으로 바꿔 두고 행마다 비교만 한다
+    private final class Filter {
+        private final boolean filterTeam;
+        private final long teamId;
+        private final byte role;
+        private final int ageGoe;
+        private final int ageLoe;
+        private final long createdFrom;
+        private final long createdTo;
+
+        Filter(MemberAnalyticsCond cond) {
+            filterTeam = cond.getTeamId() != null;
+            teamId = filterTeam ? cond.getTeamId() : NULL_ID;
+            role = cond.getMemberRole() != null ? (byte) cond.getMemberRole().ordinal() : NULL_ROLE;
+            ageGoe = cond.getAgeGoe() != null ? cond.getAgeGoe() : Integer.MIN_VALUE;
+            ageLoe = cond.getAgeLoe() != null ? cond.getAgeLoe() : Integer.MAX_VALUE;
+            createdFrom = cond.getCreatedFrom() != null ? toEpochMilli(cond.getCreatedFrom()) : NULL_DATE;
+            createdTo = cond.getCreatedTo() != null ? toEpochMilli(cond.getCreatedTo()) : Long.MAX_VALUE;
+        }
+
+        boolean matches(int row) {
+            if (filterTeam && teamIds.get(row) != teamId) {
+                return false;
+            }
+            if (role != NULL_ROLE && roles.get(row) != role) {
+                return false;
+            }
+            int age = ages.get(row);
+            if (age < ageGoe || age > ageLoe) {
+                return false;
+            }
+            if (createdFrom == NULL_DATE && createdTo == Long.MAX_VALUE) {
+                return true;
+            }
+            long createDate = createDates.get(row);
+            return createDate != NULL_DATE && createDate >= createdFrom && createDate < createdTo;
+        }
+    }
+
+    static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public long memberIdAt(int row) {
+        return memberIds.get(row);
+    }
+
+    public MemberRole memberRoleAt(int row) {
+        byte role = roles.get(row);
+        return role == NULL_ROLE ? null : ROLES[role];
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static LongBuffer allocateLongs(int count) {
+        return allocate(count * Long.BYTES).asLongBuffer();
+    }
+
+    /**
+     * 적재 중에는 힙의 원시 배열에 모았다가 build() 에서 direct 버퍼로 한 번에 복사한다.
+     */
+    static class Builder {
+        private long[] memberIds;
+        private long[] teamIds;
+        private int[] ages;
+        private byte[] roles;
+        private long[] createDates;
+        private int rowCount;
+        private int maxAge;
+
+        Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            memberIds = new long[capacity];
+            teamIds = new long[capacity];
+            ages = new int[capacity];
+            roles = new byte[capacity];
+            createDates = new long[capacity];
+        }
+
+        void add(long memberId, long teamId, int age, byte role, long createDate) {
+            if (rowCount == memberIds.length) {
+                grow();
+            }
+            memberIds[rowCount] = memberId;
+            teamIds[rowCount] = teamId;
+            ages[rowCount] = age;
+            roles[rowCount] = role;
+            createDates[rowCount] = createDate;
+            maxAge = Math.max(maxAge, age);
+            rowCount++;
+        }
+
+        MemberColumnarSnapshot build(LocalDateTime refreshedAt) {
+            return new MemberColumnarSnapshot(this, refreshedAt);
+        }
+
+        private void grow() {
+            int capacity = memberIds.length * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            createDates = Arrays.copyOf(createDates, capacity);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class TeamAgeSummary {
+    private final Long teamId;
+    private final long memberCount;
+    private final double ageAvg;
+    private final int ageMin;
+    private final int ageMax;
+}
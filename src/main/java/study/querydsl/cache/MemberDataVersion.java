@@ -0,0 +1,59 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.outbox.MemberOutboxSequencer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원/팀 데이터가 커밋될 때마다 올라가는 전역 버전. 조회 결과를 묶거나 ETag 를 만들 때 쓴다.
+ * 회원/팀 변경은 모두 같은 트랜잭션에서 member_outbox 행을 남기므로 커밋된 outbox 행 수를 버전으로 쓴다.
+ * DB 에 있는 값이라 노드끼리, 재기동 전후에도 같고, 롤백된 변경은 행이 남지 않아 버전을 올리지 않는다.
+ * 요청마다 DB 를 읽지 않도록 cache-ms 동안 들고 있는다. 이 노드의 커밋은 invalidate 로 바로, 다른 노드의 커밋은 cache-ms 안에 보인다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final MemberOutboxSequencer memberOutboxSequencer;
+    private final long cacheNanos;
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Cached cached;
+
+    public MemberDataVersion(MemberOutboxSequencer memberOutboxSequencer,
+                             @Value("${member.data-version.cache-ms:100}") long cacheMillis) {
+        this.memberOutboxSequencer = memberOutboxSequencer;
+        this.cacheNanos = TimeUnit.MILLISECONDS.toNanos(cacheMillis);
+    }
+
+    public long current() {
+        long now = System.nanoTime();
+        long generation = invalidations.get();
+        Cached snapshot = cached;
+        if (snapshot != null && snapshot.generation == generation && now - snapshot.loadedAt < cacheNanos) {
+            return snapshot.version;
+        }
+        long version = memberOutboxSequencer.committedCount();
+        //읽는 동안 invalidate 되었으면 다음 호출에서 generation 이 달라 다시 읽는다
+        cached = new Cached(version, now, generation);
+        return version;
+    }
+
+    //커밋 후에 호출한다. 커밋 전에 다시 읽으면 새 행이 아직 안 보여 이전 버전을 캐시하게 된다
+    public void invalidate() {
+        invalidations.incrementAndGet();
+    }
+
+    private static final class Cached {
+        private final long version;
+        private final long loadedAt;
+        private final long generation;
+
+        private Cached(long version, long loadedAt, long generation) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.generation = generation;
+        }
+    }
+}
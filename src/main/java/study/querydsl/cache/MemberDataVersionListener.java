@@ -0,0 +1,22 @@
+package study.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.support.AfterCommit;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+public class MemberDataVersionListener {
+
+    private final MemberDataVersion memberDataVersion;
+
+    //가입, 팀 변경, 나이 변경 등 회원/팀 엔티티 변경이 커밋되면 캐시된 버전을 버려 새 outbox 행을 바로 반영한다
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        AfterCommit.run(memberDataVersion::invalidate);
+    }
+}
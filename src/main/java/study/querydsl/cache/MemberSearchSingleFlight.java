@@ -0,0 +1,85 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 회원 조회 앞단의 single-flight.
+ * 같은 조회 경로, 같은 조건, 같은 페이지의 동시 요청은 쿼리 한 번의 결과를 나눠 받는다.
+ * 데이터 버전을 generation 으로 써서 커밋 이후 요청이 이전 버전 조회에 합류하지 않게 한다.
+ */
+@Component
+public class MemberSearchSingleFlight {
+
+    private final MemberDataVersion memberDataVersion;
+    private final SingleFlight<SearchKey, Object> singleFlight;
+
+    public MemberSearchSingleFlight(MemberDataVersion memberDataVersion,
+                                    @Value("${member.single-flight.join-timeout-ms:2000}") long joinTimeoutMillis) {
+        this.memberDataVersion = memberDataVersion;
+        this.singleFlight = new SingleFlight<>(joinTimeoutMillis);
+    }
+
+    //여러 호출자가 같은 리스트를 받으므로 수정할 수 없게 감싼다
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> searchByWhere(String readPath, MemberSearchCond memberSearchCond,
+                                             Supplier<List<MemberTeamDto>> query) {
+        SearchKey key = SearchKey.of(readPath, memberSearchCond, null);
+        return (List<MemberTeamDto>) singleFlight.execute(key, memberDataVersion.current(),
+                () -> Collections.unmodifiableList(query.get()));
+    }
+
+    //fields= 조회. 고른 필드 목록을 조회 경로에 붙여 키를 나눈다
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> searchFields(String readPath, MemberSearchCond memberSearchCond, List<MemberField> fields,
+                                                  Supplier<List<Map<String, Object>>> query) {
+        SearchKey key = SearchKey.of(readPath + fields, memberSearchCond, null);
+        return (List<Map<String, Object>>) singleFlight.execute(key, memberDataVersion.current(),
+                () -> Collections.unmodifiableList(query.get()));
+    }
+
+    //Page 의 content 는 이미 수정할 수 없는 리스트다
+    @SuppressWarnings("unchecked")
+    public Page<MemberTeamDto> searchPage(String readPath, MemberSearchCond memberSearchCond, Pageable pageable,
+                                          Supplier<Page<MemberTeamDto>> query) {
+        SearchKey key = SearchKey.of(readPath, memberSearchCond, pageable);
+        return (Page<MemberTeamDto>) singleFlight.execute(key, memberDataVersion.current(), query::get);
+    }
+
+    //호출, 합류(coalesced), 대기 초과 수의 합계. 키에는 username 같은 조회 조건이 들어 있어 내보내지 않는다
+    public SingleFlight.Stats stats() {
+        return singleFlight.stats();
+    }
+
+    /**
+     * MemberSearchCond 는 가변이므로 키에는 값을 복사해 둔다
+     */
+    @lombok.Value
+    public static class SearchKey {
+        String readPath;
+        String username;
+        UsernameMatch usernameMatch;
+        String teamName;
+        Integer ageGoe;
+        Integer ageLoe;
+        MemberRole memberRole;
+        Pageable pageable;
+
+        static SearchKey of(String readPath, MemberSearchCond cond, Pageable pageable) {
+            return new SearchKey(readPath, cond.getUsername(), cond.getUsernameMatch(), cond.getTeamName(),
+                    cond.getAgeGoe(), cond.getAgeLoe(), cond.getMemberRole(), pageable);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.cache;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 호출이 진행 중인 한 번의 실행과 결과를 함께 쓰게 한다.
+ * 결과를 저장하지 않으므로 실행이 끝난 뒤 들어온 호출은 다시 실행한다.
+ * generation 이 다르면 같은 키라도 합치지 않는다. 쓰기 커밋 후 들어온 호출이 커밋 전에 시작된 조회 결과를 받지 않게 할 때 쓴다.
+ * 합류한 호출은 joinTimeoutMillis 까지만 기다리고, 넘으면 직접 실행한다. 느린 실행 하나에 요청 스레드가 모두 묶이지 않게 한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<Flight<K>, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long joinTimeoutMillis;
+
+    //키는 조회 조건(username 등)을 담으므로 키별로 남기지 않고 합계만 센다
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(long joinTimeoutMillis) {
+        this.joinTimeoutMillis = joinTimeoutMillis;
+    }
+
+    public V execute(K key, long generation, Supplier<V> loader) {
+        calls.increment();
+        Flight<K> flight = new Flight<>(key, generation);
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(flight, mine);
+        if (leader != null) {
+            return join(leader, loader);
+        }
+
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, mine);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), coalesced.sum(), timedOut.sum(), inFlight.size());
+    }
+
+    private V join(CompletableFuture<V> leader, Supplier<V> loader) {
+        try {
+            V value = leader.get(joinTimeoutMillis, TimeUnit.MILLISECONDS);
+            coalesced.increment();
+            return value;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class Flight<K> {
+        private final K key;
+        private final long generation;
+
+        private Flight(K key, long generation) {
+            this.key = key;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Flight)) return false;
+            Flight<?> flight = (Flight<?>) o;
+            return generation == flight.generation && key.equals(flight.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, generation);
+        }
+    }
+
+    public static final class Stats {
+        private final long calls;
+        private final long coalesced;
+        private final long timedOut;
+        private final int inFlight;
+
+        private Stats(long calls, long coalesced, long timedOut, int inFlight) {
+            this.calls = calls;
+            this.coalesced = coalesced;
+            this.timedOut = timedOut;
+            this.inFlight = inFlight;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        //진행 중인 실행에 합류해 쿼리를 건너뛴 호출 수
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        //합류했다가 기다림이 길어 직접 실행한 호출 수
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public long getExecuted() {
+            return calls - coalesced;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+    }
+}
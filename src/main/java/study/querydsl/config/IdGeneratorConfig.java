@@ -0,0 +1,25 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.id.SnowflakeIdGenerator;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    //JDBC 로 직접 넣는 경로용. Member, Team 의 JPA 식별자 생성기와 같은 설정, 같은 카운터를 쓴다
+    //node-id 는 기본값이 없다. 노드마다 다른 값을 정하지 않고 뜨면 id 가 겹치므로 기동을 막는다
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(
+            @Value("${spring.jpa.properties.id.snowflake.epoch:" + SnowflakeIdGenerator.DEFAULT_EPOCH + "}") long epoch,
+            @Value("${spring.jpa.properties.id.snowflake.node-id:#{null}}") Long nodeId,
+            @Value("${spring.jpa.properties.id.snowflake.node-bits:10}") int nodeBits,
+            @Value("${spring.jpa.properties.id.snowflake.sequence-bits:12}") int sequenceBits,
+            @Value("${spring.jpa.properties.id.snowflake.max-lead-ms:" + SnowflakeIdGenerator.DEFAULT_MAX_LEAD_MILLIS + "}") long maxLeadMillis) {
+        if (nodeId == null) {
+            throw new IllegalStateException("spring.jpa.properties.id.snowflake.node-id 를 노드마다 다르게 지정해야 합니다.");
+        }
+        return SnowflakeIdGenerator.shared(epoch, nodeId, nodeBits, sequenceBits, maxLeadMillis);
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    //리플렉션 대신 LambdaMetafactory 로 만든 getter/setter 로 직렬화한다. 스프링 부트가 ObjectMapper 에 등록한다
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberChangesResponse;
+import study.querydsl.service.MemberChangeFeedService;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberChangeController {
+
+    private final MemberChangeFeedService memberChangeFeedService;
+
+    //since 없이 부르면 처음부터, 이후에는 응답의 nextSeq 를 since 로 넘긴다. 410 이면 처음부터 다시 받는다
+    @GetMapping("/members/changes")
+    public MemberChangesResponse changes(@RequestParam(defaultValue = "0") long since,
+                                         @RequestParam(defaultValue = "500") int limit) {
+        try {
+            return memberChangeFeedService.findChanges(since, limit);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage(), e);
+        }
+    }
+}
@@ -1,37 +1,177 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.cache.MemberSearchSingleFlight;
+import study.querydsl.cache.SingleFlight;
+import study.querydsl.dto.MemberBatchSearchResult;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+import study.querydsl.dto.UsernameSuggestion;
+import study.querydsl.index.UsernamePrefixIndex;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberNativeRepository;
+import study.querydsl.repository.MemberQueryRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSqlRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String SQL_READ_PATH = "sql";
+    private static final String NATIVE_READ_PATH = "native";
+    private static final int MAX_BATCH_SIZE = 1_000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberSqlRepository memberSqlRepository;
+    private final MemberNativeRepository memberNativeRepository;
+    private final MemberResponseWriter memberResponseWriter;
+    private final MemberSearchETag memberSearchETag;
+    private final MemberSearchSingleFlight memberSearchSingleFlight;
+    private final UsernamePrefixIndex usernamePrefixIndex;
+
+    //엔드포인트별 조회 경로 (jpa | sql | native)
+    @Value("${member.read-path.v1:jpa}")
+    private String v1ReadPath;
+    @Value("${member.read-path.v2:jpa}")
+    private String v2ReadPath;
+    @Value("${member.read-path.v3:jpa}")
+    private String v3ReadPath;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCond memberSearchCond) {
-        return memberJpaRepository.searchByWhere(memberSearchCond);
+    public ResponseEntity<byte[]> searchMemberV1(MemberSearchCond memberSearchCond,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestHeader HttpHeaders headers, WebRequest webRequest) {
+        List<MemberField> memberFields = parseFields(fields);
+        String endpoint = memberFields == null ? "v1" : "v1" + memberFields;
+        //데이터 버전이 그대로면 DB 조회 없이 304
+        if (webRequest.checkNotModified(memberSearchETag.of(endpoint, memberSearchCond, null, headers))) {
+            return null;
+        }
+
+        //고른 컬럼만 조회한다. 조회 경로와 관계없이 Querydsl 동적 projection 을 쓴다
+        if (memberFields != null) {
+            List<Map<String, Object>> rows = memberSearchSingleFlight.searchFields("v1:", memberSearchCond, memberFields,
+                    () -> memberQueryRepository.searchFields(memberSearchCond, memberFields));
+            return memberResponseWriter.writeFields(rows, headers);
+        }
+
+        //같은 조건의 동시 요청은 쿼리 한 번을 공유한다
+        List<MemberTeamDto> members = memberSearchSingleFlight.searchByWhere("v1:" + v1ReadPath, memberSearchCond,
+                () -> searchByWhere(v1ReadPath, memberSearchCond));
+        return memberResponseWriter.write(members, headers);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCond memberSearchCond, Pageable pageable) {
-        return memberRepository.searchPageSimple(memberSearchCond, pageable);
+    public ResponseEntity<byte[]> searchMemberV2(MemberSearchCond memberSearchCond, Pageable pageable, @RequestHeader HttpHeaders headers, WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberSearchETag.of("v2", memberSearchCond, pageable, headers))) {
+            return null;
+        }
+        Page<MemberTeamDto> page = memberSearchSingleFlight.searchPage("v2:" + v2ReadPath, memberSearchCond, pageable,
+                () -> readPath(v2ReadPath).searchPageSimple(memberSearchCond, pageable));
+        return memberResponseWriter.write(PageResponse.of(page), headers);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCond memberSearchCond, Pageable pageable) {
-        return memberRepository.searchPageComplex(memberSearchCond, pageable);
+    public ResponseEntity<byte[]> searchMemberV3(MemberSearchCond memberSearchCond, Pageable pageable, @RequestHeader HttpHeaders headers, WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberSearchETag.of("v3", memberSearchCond, pageable, headers))) {
+            return null;
+        }
+        Page<MemberTeamDto> page = memberSearchSingleFlight.searchPage("v3:" + v3ReadPath, memberSearchCond, pageable,
+                () -> readPath(v3ReadPath).searchPageComplex(memberSearchCond, pageable));
+        return memberResponseWriter.write(PageResponse.of(page), headers);
+    }
+
+    //반복해서 /v1/members 를 호출하는 대신 조건 목록을 한 번에 보낸다
+    @PostMapping("/members/search:batch")
+    public List<MemberBatchSearchResult> searchMemberBatch(@RequestBody List<MemberSearchCond> memberSearchConds) {
+        if (memberSearchConds.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "한 번에 조회할 수 있는 조건은 " + MAX_BATCH_SIZE + "개까지입니다.");
+        }
+        //[{...}, null] 처럼 빈 원소가 섞이면 조회 전에 거절한다
+        for (int i = 0; i < memberSearchConds.size(); i++) {
+            if (memberSearchConds.get(i) == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, i + "번째 조건이 비어 있습니다.");
+            }
+        }
+
+        List<List<MemberTeamDto>> results = memberQueryRepository.searchBatch(memberSearchConds);
+        List<MemberBatchSearchResult> response = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            response.add(new MemberBatchSearchResult(i, memberSearchConds.get(i), results.get(i)));
+        }
+        return response;
+    }
+
+    //DB 를 거치지 않고 메모리 접두어 인덱스에서 username 후보를 찾는다
+    @GetMapping("/members/autocomplete")
+    public List<UsernameSuggestion> autocomplete(@RequestParam String prefix,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 은 1 이상 " + MAX_SUGGESTIONS + " 이하여야 합니다.");
+        }
+        return usernamePrefixIndex.suggest(prefix, limit);
+    }
+
+    @GetMapping("/members/single-flight/stats")
+    public SingleFlight.Stats singleFlightStats() {
+        return memberSearchSingleFlight.stats();
+    }
+
+    private List<MemberField> parseFields(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return null;
+        }
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private List<MemberTeamDto> searchByWhere(String readPath, MemberSearchCond memberSearchCond) {
+        if (SQL_READ_PATH.equals(readPath)) {
+            return memberSqlRepository.searchByWhere(memberSearchCond);
+        }
+        if (NATIVE_READ_PATH.equals(readPath)) {
+            return memberNativeRepository.searchByWhere(memberSearchCond);
+        }
+        return memberJpaRepository.searchByWhere(memberSearchCond);
+    }
+
+    private MemberRepositoryCustom readPath(String readPath) {
+        if (SQL_READ_PATH.equals(readPath)) {
+            return memberSqlRepository;
+        }
+        if (NATIVE_READ_PATH.equals(readPath)) {
+            return memberNativeRepository;
+        }
+        return memberRepository;
     }
 
 }
@@ -0,0 +1,118 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberExportStatus;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.export.MemberExportFormat;
+import study.querydsl.export.MemberExportJob;
+import study.querydsl.export.MemberExportService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    //Tomcat NIO 커넥터의 sendfile. 지원하면 응답 스트림을 거치지 않고 커널이 파일을 소켓으로 보낸다
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MemberExportService memberExportService;
+
+    //조건은 /v1/members 와 같다. 202 와 작업 상태를 돌려주고, 끝나면 Location 의 /file 로 받는다
+    @PostMapping("/members/exports")
+    public ResponseEntity<MemberExportStatus> submit(MemberSearchCond memberSearchCond,
+                                                     @RequestParam(defaultValue = "csv") String format) {
+        MemberExportFormat exportFormat;
+        try {
+            exportFormat = MemberExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        MemberExportJob job;
+        try {
+            job = memberExportService.submit(memberSearchCond, exportFormat);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "대기 중인 내보내기 작업이 너무 많습니다.", e);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/members/exports/" + job.getId()))
+                .body(job.toStatus());
+    }
+
+    @GetMapping("/members/exports/{jobId}")
+    public MemberExportStatus status(@PathVariable String jobId) {
+        return findJob(jobId).toStatus();
+    }
+
+    //실행 중이면 취소하고, 끝났으면 파일을 지운다
+    @DeleteMapping("/members/exports/{jobId}")
+    public ResponseEntity<Void> remove(@PathVariable String jobId) {
+        if (!memberExportService.remove(jobId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "내보내기 작업이 없습니다. jobId=" + jobId);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    //파일을 힙에 올리지 않는다. sendfile 을 못 쓰면 FileChannel.transferTo 로 응답 스트림에 바로 보낸다
+    @GetMapping("/members/exports/{jobId}/file")
+    public void download(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MemberExportJob job = findJob(jobId);
+        if (job.getStatus() != MemberExportJob.Status.DONE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "내보내기가 끝나지 않았습니다. status=" + job.getStatus());
+        }
+
+        try (FileChannel channel = FileChannel.open(job.getFile(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(job.getFormat().getContentType());
+            response.setContentLengthLong(size);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("members-" + jobId + job.getFormat().getExtension())
+                    .build().toString());
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, job.getFile().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        } catch (NoSuchFileException e) {
+            //보관 기간이 지나 지워졌다
+            throw new ResponseStatusException(HttpStatus.GONE, "내보내기 파일이 없습니다. jobId=" + jobId, e);
+        }
+    }
+
+    private MemberExportJob findJob(String jobId) {
+        return memberExportService.find(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "내보내기 작업이 없습니다. jobId=" + jobId));
+    }
+}
@@ -0,0 +1,182 @@
+package study.querydsl.controller;
+
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member_team.proto 의 메시지를 protobuf 와이어 포맷으로 직접 인코딩한다.
+ * 메시지마다 varint 길이를 앞에 붙여 (writeDelimitedTo 와 같은 형식) 이어 쓴다.
+ * null 필드는 proto3 기본값처럼 생략한다.
+ */
+class MemberProtobufEncoder {
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    //MemberTeam 필드 번호
+    private static final int MEMBER_ID = 1;
+    private static final int USERNAME = 2;
+    private static final int AGE = 3;
+    private static final int TEAM_ID = 4;
+    private static final int TEAM_NAME = 5;
+
+    //PageInfo 필드 번호
+    private static final int PAGE = 1;
+    private static final int SIZE = 2;
+    private static final int TOTAL_ELEMENTS = 3;
+    private static final int TOTAL_PAGES = 4;
+
+    private byte[] buf;
+    private int count;
+
+    private MemberProtobufEncoder(int capacity) {
+        this.buf = new byte[capacity];
+    }
+
+    //MemberTeam*
+    static byte[] encode(List<MemberTeamDto> members) {
+        MemberProtobufEncoder encoder = new MemberProtobufEncoder(estimate(members.size()));
+        encoder.writeMembers(members);
+        return encoder.toByteArray();
+    }
+
+    //PageInfo 한 건 뒤에 MemberTeam*
+    static byte[] encode(PageResponse<MemberTeamDto> page) {
+        MemberProtobufEncoder encoder = new MemberProtobufEncoder(estimate(page.getContent().size()) + 32);
+        int size = varintField(PAGE, page.getPage())
+                + varintField(SIZE, page.getSize())
+                + varintField(TOTAL_ELEMENTS, page.getTotalElements())
+                + varintField(TOTAL_PAGES, page.getTotalPages());
+        encoder.writeVarint(size);
+        encoder.writeVarintField(PAGE, page.getPage());
+        encoder.writeVarintField(SIZE, page.getSize());
+        encoder.writeVarintField(TOTAL_ELEMENTS, page.getTotalElements());
+        encoder.writeVarintField(TOTAL_PAGES, page.getTotalPages());
+        encoder.writeMembers(page.getContent());
+        return encoder.toByteArray();
+    }
+
+    //fields= 조회 결과. 고르지 않은 필드는 null(또는 0)이 되어 메시지에서 생략된다
+    static byte[] encodeFields(List<Map<String, Object>> rows) {
+        List<MemberTeamDto> members = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object age = row.get("age");
+            members.add(new MemberTeamDto(
+                    (Long) row.get("memberId"),
+                    (String) row.get("username"),
+                    age != null ? (Integer) age : 0,
+                    (Long) row.get("teamId"),
+                    (String) row.get("teamName")));
+        }
+        return encode(members);
+    }
+
+    private static int estimate(int rows) {
+        return Math.max(64, rows * 40);
+    }
+
+    private void writeMembers(List<MemberTeamDto> members) {
+        for (MemberTeamDto member : members) {
+            byte[] username = utf8(member.getUsername());
+            byte[] teamName = utf8(member.getTeamName());
+
+            int size = 0;
+            if (member.getMemberId() != null) {
+                size += varintField(MEMBER_ID, member.getMemberId());
+            }
+            if (username != null) {
+                size += bytesField(USERNAME, username);
+            }
+            size += varintField(AGE, member.getAge());
+            if (member.getTeamId() != null) {
+                size += varintField(TEAM_ID, member.getTeamId());
+            }
+            if (teamName != null) {
+                size += bytesField(TEAM_NAME, teamName);
+            }
+
+            writeVarint(size);
+            if (member.getMemberId() != null) {
+                writeVarintField(MEMBER_ID, member.getMemberId());
+            }
+            if (username != null) {
+                writeBytesField(USERNAME, username);
+            }
+            writeVarintField(AGE, member.getAge());
+            if (member.getTeamId() != null) {
+                writeVarintField(TEAM_ID, member.getTeamId());
+            }
+            if (teamName != null) {
+                writeBytesField(TEAM_NAME, teamName);
+            }
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    //proto3 는 0 을 기본값으로 보고 생략한다
+    private static int varintField(int field, long value) {
+        return value == 0 ? 0 : varintSize(tag(field, WIRE_VARINT)) + varintSize(value);
+    }
+
+    private static int bytesField(int field, byte[] value) {
+        return varintSize(tag(field, WIRE_LENGTH_DELIMITED)) + varintSize(value.length) + value.length;
+    }
+
+    private static int tag(int field, int wireType) {
+        return (field << 3) | wireType;
+    }
+
+    //음수 int32/int64 는 64비트 2의 보수로 10바이트가 된다
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void writeVarintField(int field, long value) {
+        if (value == 0) {
+            return;
+        }
+        writeVarint(tag(field, WIRE_VARINT));
+        writeVarint(value);
+    }
+
+    private void writeBytesField(int field, byte[] value) {
+        writeVarint(tag(field, WIRE_LENGTH_DELIMITED));
+        writeVarint(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buf, count, value.length);
+        count += value.length;
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[count++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+
+    private byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * 회원 조회 응답 포맷. Accept 헤더로 고르고, 맞는 포맷이 없으면 JSON 으로 응답한다.
+ */
+public enum MemberResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(new MediaType("application", "x-jackson-smile")),
+    CBOR(MediaType.APPLICATION_CBOR),
+    //MemberTeam 메시지를 varint 길이 접두어로 이어 붙인 스트림 (src/main/resources/proto/member_team.proto)
+    PROTOBUF(new MediaType("application", "x-protobuf"));
+
+    private final MediaType mediaType;
+
+    MemberResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static MemberResponseFormat from(HttpHeaders headers) {
+        List<MediaType> accepts;
+        try {
+            accepts = headers.getAccept();
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+
+        MediaType.sortBySpecificityAndQuality(accepts);
+        for (MediaType accept : accepts) {
+            if (accept.isWildcardType() || accept.getQualityValue() == 0) {
+                continue;
+            }
+            for (MemberResponseFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(accept)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 루트 타입이 고정된 ObjectWriter 를 한 번 만들어 재사용한다.
+ * 요청마다 반환 타입으로 직렬화기를 찾는 과정을 건너뛰고 바로 바이트로 쓴다.
+ * Accept 헤더에 따라 JSON, Smile, CBOR, protobuf 로 응답한다.
+ * 압축은 서블릿 컨테이너가 맡는다(server.compression.*). 여기서 압축하면 응답 바이트를 한 번 더 복사하고 Vary/Content-Length 처리를 중복한다.
+ */
+@Component
+public class MemberResponseWriter {
+
+    private static final TypeReference<List<MemberTeamDto>> LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<PageResponse<MemberTeamDto>> PAGE_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> FIELDS_TYPE = new TypeReference<>() {};
+
+    //protobuf 를 뺀 Jackson 포맷별 ObjectWriter
+    private final Map<MemberResponseFormat, ObjectWriter> listWriters;
+    private final Map<MemberResponseFormat, ObjectWriter> pageWriters;
+    private final Map<MemberResponseFormat, ObjectWriter> fieldsWriters;
+
+    public MemberResponseWriter(ObjectMapper objectMapper) {
+        Map<MemberResponseFormat, ObjectMapper> mappers = new EnumMap<>(MemberResponseFormat.class);
+        mappers.put(MemberResponseFormat.JSON, objectMapper);
+        mappers.put(MemberResponseFormat.SMILE, new SmileMapper().registerModule(new BlackbirdModule()));
+        mappers.put(MemberResponseFormat.CBOR, new CBORMapper().registerModule(new BlackbirdModule()));
+
+        this.listWriters = writers(mappers, LIST_TYPE);
+        this.pageWriters = writers(mappers, PAGE_TYPE);
+        this.fieldsWriters = writers(mappers, FIELDS_TYPE);
+    }
+
+    private static Map<MemberResponseFormat, ObjectWriter> writers(Map<MemberResponseFormat, ObjectMapper> mappers, TypeReference<?> type) {
+        Map<MemberResponseFormat, ObjectWriter> writers = new EnumMap<>(MemberResponseFormat.class);
+        mappers.forEach((format, mapper) -> writers.put(format, mapper.writerFor(type)));
+        return writers;
+    }
+
+    public ResponseEntity<byte[]> write(List<MemberTeamDto> members, HttpHeaders requestHeaders) {
+        MemberResponseFormat format = MemberResponseFormat.from(requestHeaders);
+        byte[] body = format == MemberResponseFormat.PROTOBUF
+                ? MemberProtobufEncoder.encode(members)
+                : write(listWriters.get(format), members);
+        return respond(format, body);
+    }
+
+    public ResponseEntity<byte[]> write(PageResponse<MemberTeamDto> page, HttpHeaders requestHeaders) {
+        MemberResponseFormat format = MemberResponseFormat.from(requestHeaders);
+        byte[] body = format == MemberResponseFormat.PROTOBUF
+                ? MemberProtobufEncoder.encode(page)
+                : write(pageWriters.get(format), page);
+        return respond(format, body);
+    }
+
+    //fields= 로 고른 컬럼만 담은 행. protobuf 는 고르지 않은 필드를 생략한 MemberTeam 메시지로 쓴다
+    public ResponseEntity<byte[]> writeFields(List<Map<String, Object>> rows, HttpHeaders requestHeaders) {
+        MemberResponseFormat format = MemberResponseFormat.from(requestHeaders);
+        byte[] body = format == MemberResponseFormat.PROTOBUF
+                ? MemberProtobufEncoder.encodeFields(rows)
+                : write(fieldsWriters.get(format), rows);
+        return respond(format, body);
+    }
+
+    //Accept-Encoding 에 대한 Vary 는 압축하는 컨테이너가 붙인다
+    private ResponseEntity<byte[]> respond(MemberResponseFormat format, byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    private byte[] write(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("회원 응답 직렬화에 실패했습니다.", e);
+        }
+    }
+}
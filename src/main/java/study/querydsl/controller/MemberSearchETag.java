@@ -0,0 +1,50 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import study.querydsl.cache.MemberDataVersion;
+import study.querydsl.dto.MemberSearchCond;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 데이터 버전 + 조회 조건 + 응답 포맷으로 회원 조회 ETag 를 만든다.
+ * 같은 버전, 같은 조건이면 결과도 같으므로 If-None-Match 비교만으로 304 를 줄 수 있다.
+ * Content-Encoding 에 따라 바이트가 달라지므로 약한 ETag 를 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchETag {
+
+    private final MemberDataVersion memberDataVersion;
+
+    //조회 전에 만들어야 한다. 조회 중 커밋된 변경은 다음 요청에서 새 버전으로 드러난다
+    public String of(String endpoint, MemberSearchCond memberSearchCond, Pageable pageable, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder();
+        append(key, endpoint);
+        append(key, memberSearchCond.getUsername());
+        append(key, memberSearchCond.getUsernameMatch());
+        append(key, memberSearchCond.getTeamName());
+        append(key, memberSearchCond.getAgeGoe());
+        append(key, memberSearchCond.getAgeLoe());
+        append(key, memberSearchCond.getMemberRole());
+        if (pageable != null && pageable.isPaged()) {
+            append(key, pageable.getPageNumber());
+            append(key, pageable.getPageSize());
+        }
+        append(key, pageable != null ? pageable.getSort() : null);
+        append(key, MemberResponseFormat.from(headers));
+
+        String hash = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + memberDataVersion.current() + "-" + hash + "\"";
+    }
+
+    //값 앞에 길이를 붙여 구분자가 들어간 값끼리 섞이지 않게 한다
+    private void append(StringBuilder key, Object value) {
+        String text = value == null ? "" : value.toString();
+        key.append(text.length()).append(':').append(text);
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.PageResponse;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private static final int MAX_SCROLL_SIZE = 1_000;
+
+    private final TeamRepository teamRepository;
+
+    //team id 를 먼저 페이지로 읽고 그 팀들만 회원과 함께 읽는다. 정렬 파라미터는 무시하고 team id 순서다
+    @GetMapping("/teams")
+    public PageResponse<TeamMembersDto> teams(Pageable pageable) {
+        return PageResponse.of(teamRepository.findPageWithMembers(pageable).map(TeamMembersDto::new));
+    }
+
+    //응답의 마지막 teamId 를 다음 요청의 afterTeamId 로 넘긴다
+    @GetMapping("/teams/scroll")
+    public List<TeamMembersDto> scrollTeams(@RequestParam(required = false) Long afterTeamId,
+                                            @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 이상 " + MAX_SCROLL_SIZE + " 이하여야 합니다.");
+        }
+        return teamRepository.findWithMembersAfter(afterTeamId, size).stream()
+                .map(TeamMembersDto::new)
+                .collect(Collectors.toList());
+    }
+}
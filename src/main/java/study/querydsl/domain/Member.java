@@ -1,24 +1,46 @@
 package study.querydsl.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import study.querydsl.cache.MemberDataVersionListener;
+import study.querydsl.id.SnowflakeIdentifierGenerator;
+import study.querydsl.index.MemberBitmapIndexListener;
+import study.querydsl.index.UsernamePrefixIndexListener;
+import study.querydsl.outbox.MemberOutboxListener;
+import study.querydsl.readmodel.MemberSearchViewListener;
+import study.querydsl.service.TeamStatsListener;
 
 import javax.persistence.*;
 
+import java.util.Locale;
 import java.util.Objects;
 
 import static javax.persistence.FetchType.LAZY;
+import static org.hibernate.Hibernate.isInitialized;
+import static org.hibernate.proxy.HibernateProxyHelper.getClassWithoutInitializingProxy;
 
 @Entity
+@EntityListeners({MemberBitmapIndexListener.class, MemberDataVersionListener.class, MemberOutboxListener.class,
+        MemberSearchViewListener.class, TeamStatsListener.class, UsernamePrefixIndexListener.class})
+@Table(indexes = @Index(name = "idx_member_normalized_username", columnList = "normalizedUsername"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    //persist 시점에 snowflake id 를 받는다. 그 전에는 null 이라 Spring Data 가 새 엔티티로 보고 persist 한다
+    @Id @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = SnowflakeIdentifierGenerator.STRATEGY)
     @Column(name = "member_id")
+    @Setter(AccessLevel.NONE)
     private Long id;
 
     private String username;
+
+    //username 을 trim + 소문자로 바꾼 값. lower(username) 대신 이 컬럼을 비교해야 인덱스를 탄다
+    @Setter(AccessLevel.NONE)
+    private String normalizedUsername;
+
     private int age;
 
     @Enumerated(EnumType.STRING)
@@ -27,26 +49,37 @@ public class Member extends BaseEntity {
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "team_id")
     @ToString.Exclude
+    @Setter(AccessLevel.NONE)
     private Team team;
 
+    //팀 집계에 마지막으로 반영된 소속과 나이. TeamStatsListener 가 flush 때 현재 값과 비교해 증감분만 반영한다
+    @Transient
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private Long appliedTeamId;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private int appliedAge;
+
     public Member(String username) {
         this.age = 0;
-        this.username = username;
+        setUsername(username);
     }
 
     public Member(String username, int age) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
     }
 
     public Member(String username, MemberRole memberRole) {
-        this.username = username;
+        setUsername(username);
         this.memberRole = memberRole;
     }
 
     public static Member createMember(String username, int age, Team team) {
-        Member member = new Member();
-        member.username = username;
+        Member member = new Member(username);
         member.age = age;
         if(team != null) {
             member.changeTeam(team);
@@ -54,21 +87,50 @@ public class Member extends BaseEntity {
         return member;
     }
 
+    public void setUsername(String username) {
+        this.username = username;
+        this.normalizedUsername = normalizeUsername(username);
+    }
+
+    public static String normalizeUsername(String username) {
+        return username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    //팀 집계는 flush 때 TeamStatsListener 가 맞춘다. 이전 팀과 그 회원 컬렉션은 이미 읽혀 있을 때만 고친다
     public void changeTeam(Team team) {
+        if (this.team != null && isInitialized(this.team) && isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
+        //mappedBy 쪽 bag 의 add 는 초기화하지 않고 쌓아 둔다
         team.getMembers().add(this);
     }
 
+    //팀 프록시를 초기화하지 않고 id 만 읽는다
+    public Long getTeamId() {
+        return team != null ? team.getId() : null;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberAppliedStat() {
+        appliedTeamId = getTeamId();
+        appliedAge = age;
+    }
+
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (o == null || getClassWithoutInitializingProxy(this) != getClassWithoutInitializingProxy(o)) return false;
         Member member = (Member) o;
-        return age == member.age && Objects.equals(id, member.id) && Objects.equals(username, member.username) && memberRole == member.memberRole && Objects.equals(team, member.team);
+        return getId() != null && Objects.equals(getId(), member.getId());
     }
 
+    //id 로 흩어 담는다. id 가 없으면 클래스 단위 해시라, id 가 없을 때 해시 컬렉션에 담았다면 id 가 생긴 뒤 다시 담아야 한다
     @Override
-    public int hashCode() {
-        return Objects.hash(id, username, age, memberRole, team);
+    public final int hashCode() {
+        Long id = getId();
+        return id != null ? id.hashCode() : getClassWithoutInitializingProxy(this).hashCode();
     }
 }
@@ -0,0 +1,9 @@
+package study.querydsl.domain;
+
+public enum MemberChangeType {
+    MEMBER_SAVED, MEMBER_REMOVED, TEAM_SAVED, TEAM_REMOVED, MEMBERS_BULK_UPDATED, MEMBERS_BULK_DELETED;
+
+    public boolean isBulk() {
+        return this == MEMBERS_BULK_UPDATED || this == MEMBERS_BULK_DELETED;
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 회원/팀 변경과 같은 트랜잭션에서 쌓는 outbox. 행은 {@link study.querydsl.outbox.MemberOutboxWriter} 가 JDBC 로 넣는다.
+ * seq 는 커밋된 뒤 {@link study.querydsl.outbox.MemberOutboxSequencer} 가 커밋이 보인 순서대로 매긴다.
+ * 발행해도 지우지 않고 보관 기간이 지나면 지운다. 엔티티는 스키마 생성용이다.
+ */
+@Entity
+@Table(name = "member_outbox", indexes = {
+        @Index(name = "uk_member_outbox_seq", columnList = "seq", unique = true),
+        @Index(name = "idx_member_outbox_occurred_at", columnList = "occurredAt")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberOutbox {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long id;
+
+    //커밋 순서. 아직 매기지 않았으면 null
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MemberChangeType changeType;
+
+    private Long aggregateId;
+
+    private Long teamId;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+}
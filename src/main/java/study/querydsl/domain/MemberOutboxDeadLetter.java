@@ -0,0 +1,44 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 구독자가 재시도 한도까지 실패해 건너뛴 seq 구간. 구독자를 고친 뒤 이 구간을 다시 흘려 보내거나 재구축한다.
+ * 행은 JDBC 로 넣고 엔티티는 스키마 생성용이다.
+ */
+@Entity
+@Table(name = "member_outbox_dead_letter")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberOutboxDeadLetter {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "dead_letter_id")
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String consumerId;
+
+    @Column(nullable = false, length = 100)
+    private String subscriber;
+
+    @Column(nullable = false)
+    private long fromSeq;
+
+    @Column(nullable = false)
+    private long toSeq;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,32 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * consumer 하나를 한 번에 한 폴러만 발행하도록 잡는 임대. 같은 consumer-id 로 뜬 인스턴스가 둘이어도 같은 변경을 두 번 발행하지 않는다.
+ * 행은 JDBC 로 다루고 엔티티는 스키마 생성용이다.
+ */
+@Entity
+@Table(name = "member_outbox_lease")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberOutboxLease {
+
+    @Id
+    @Column(length = 100)
+    private String consumerId;
+
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,55 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 노드(consumer)마다, 구독자마다 어디까지 받았는지. 노드마다 따로 두므로 모든 노드가 모든 변경을 받는다.
+ * attempts 는 같은 묶음에서 연속으로 실패한 횟수다. 행은 JDBC 로 다루고 엔티티는 스키마 생성용이다.
+ */
+@Entity
+@Table(name = "member_outbox_offset")
+@IdClass(MemberOutboxOffset.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberOutboxOffset {
+
+    @Id
+    @Column(length = 100)
+    private String consumerId;
+
+    @Id
+    @Column(length = 100)
+    private String subscriber;
+
+    @Column(nullable = false)
+    private long lastSeq;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String consumerId;
+        private String subscriber;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * outbox seq 를 매기는 쪽이 잡는 잠금 행이자 마지막으로 매긴 seq. 노드가 여럿이어도 이 행을 잠근 한 곳만 seq 를 매긴다.
+ * 행은 JDBC 로 다루고 엔티티는 스키마 생성용이다.
+ */
+@Entity
+@Table(name = "member_outbox_sequence")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberOutboxSequence {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private long lastSeq;
+}
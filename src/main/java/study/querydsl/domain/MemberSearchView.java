@@ -0,0 +1,43 @@
+package study.querydsl.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.*;
+
+/**
+ * 회원 검색용 비정규화 읽기 모델. 회원 + 팀명을 한 행에 두어 조인 없이 검색한다.
+ * 쓰기는 {@link study.querydsl.readmodel.MemberSearchViewWriter} 가 회원/팀 변경과 같은 트랜잭션에서 JDBC 로 한다.
+ * member, team 에 flush 되지 않은 변경이 있으면 이 엔티티를 조회하기 전에 flush 되도록 @Synchronize 를 건다.
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Table(name = "member_search_view", indexes = {
+        @Index(name = "idx_member_search_view_team_name", columnList = "teamName"),
+        @Index(name = "idx_member_search_view_team_id", columnList = "teamId"),
+        @Index(name = "idx_member_search_view_username", columnList = "username"),
+        @Index(name = "idx_member_search_view_normalized_username", columnList = "normalizedUsername"),
+        @Index(name = "idx_member_search_view_age", columnList = "age")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberSearchView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+    private String normalizedUsername;
+    private int age;
+
+    @Enumerated(EnumType.STRING)
+    private MemberRole memberRole;
+
+    private Long teamId;
+    private String teamName;
+}
@@ -1,19 +1,35 @@
 package study.querydsl.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import study.querydsl.cache.MemberDataVersionListener;
+import study.querydsl.id.SnowflakeIdentifierGenerator;
+import study.querydsl.index.MemberBitmapIndexListener;
+import study.querydsl.outbox.MemberOutboxListener;
+import study.querydsl.readmodel.MemberSearchViewListener;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+
+import static org.hibernate.proxy.HibernateProxyHelper.getClassWithoutInitializingProxy;
 
 @Entity
+@EntityListeners({MemberBitmapIndexListener.class, MemberDataVersionListener.class, MemberOutboxListener.class,
+        MemberSearchViewListener.class})
+//CSV 적재가 팀명으로 팀을 찾거나 만든다. 동시에 만들어도 한 팀만 남는다
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_team_name", columnNames = "name"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class Team extends BaseEntity {
 
-    @Id @GeneratedValue
+    //persist 시점에 snowflake id 를 받는다. 그 전에는 null 이라 Spring Data 가 새 엔티티로 보고 persist 한다
+    @Id @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = SnowflakeIdentifierGenerator.STRATEGY)
     @Column(name = "team_id")
+    @Setter(AccessLevel.NONE)
     private Long id;
 
     private String name;
@@ -22,7 +38,43 @@ public class Team extends BaseEntity {
     @ToString.Exclude
     private List<Member> members = new ArrayList<>();
 
+    //집계 컬럼은 TeamStatsWriter 의 update 문으로만 바뀐다. 엔티티 dirty checking 이 동시에 더해진 값을 덮어쓰지 않게 한다
+    @Column(updatable = false)
+    @Setter(AccessLevel.NONE)
+    private long memberCount;
+
+    @Column(updatable = false)
+    @Setter(AccessLevel.NONE)
+    private long ageSum;
+
+    @Column(updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer ageMin;
+
+    @Column(updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer ageMax;
+
     public Team(String name) {
         this.name = name;
     }
+
+    public double getAgeAvg() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClassWithoutInitializingProxy(this) != getClassWithoutInitializingProxy(o)) return false;
+        Team team = (Team) o;
+        return getId() != null && Objects.equals(getId(), team.getId());
+    }
+
+    //id 로 흩어 담는다. id 가 없으면 클래스 단위 해시라, id 가 없을 때 해시 컬렉션에 담았다면 id 가 생긴 뒤 다시 담아야 한다
+    @Override
+    public final int hashCode() {
+        Long id = getId();
+        return id != null ? id.hashCode() : getClassWithoutInitializingProxy(this).hashCode();
+    }
 }
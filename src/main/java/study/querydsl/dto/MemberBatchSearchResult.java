@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 일괄 조회에서 요청한 조건 하나의 결과. index 는 요청 목록에서의 위치
+ */
+@Getter
+public class MemberBatchSearchResult {
+
+    private final int index;
+    private final MemberSearchCond condition;
+    private final List<MemberTeamDto> members;
+
+    public MemberBatchSearchResult(int index, MemberSearchCond condition, List<MemberTeamDto> members) {
+        this.index = index;
+        this.condition = condition;
+        this.members = members;
+    }
+}
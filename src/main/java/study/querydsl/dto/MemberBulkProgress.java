@@ -0,0 +1,32 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 묶음 단위 벌크 작업의 진행 상황. 묶음이 커밋될 때마다, 그리고 끝났을 때(done) 한 번 만든다.
+ */
+@Getter
+@ToString
+public class MemberBulkProgress {
+
+    private final String operation;
+    private final int chunks;
+    private final long rows;
+    private final long elapsedMillis;
+    private final Long lastMemberId;
+    private final boolean done;
+
+    public MemberBulkProgress(String operation, int chunks, long rows, long elapsedMillis, Long lastMemberId, boolean done) {
+        this.operation = operation;
+        this.chunks = chunks;
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+        this.lastMemberId = lastMemberId;
+        this.done = done;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import study.querydsl.domain.MemberRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * 변경 피드의 한 건. 지금 회원 상태를 담고, 회원이 지워졌으면 deleted 만 true 이고 나머지는 비어 있다(tombstone)
+ */
+@Data
+public class MemberChangeDto {
+    private long seq;
+    private Long memberId;
+    private boolean deleted;
+    private String username;
+    private Integer age;
+    private MemberRole memberRole;
+    private Long teamId;
+    private LocalDateTime createDate;
+    private LocalDateTime updateDate;
+
+    //currentMemberId 는 outbox 행에 left join 한 회원 id, 없으면 지워진 회원이다
+    @QueryProjection
+    public MemberChangeDto(long seq, Long memberId, Long currentMemberId, String username, Integer age,
+                           MemberRole memberRole, Long teamId, LocalDateTime createDate, LocalDateTime updateDate) {
+        this.seq = seq;
+        this.memberId = memberId;
+        this.deleted = currentMemberId == null;
+        this.username = username;
+        this.age = age;
+        this.memberRole = memberRole;
+        this.teamId = teamId;
+        this.createDate = createDate;
+        this.updateDate = updateDate;
+    }
+}
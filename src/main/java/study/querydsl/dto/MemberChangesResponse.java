@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 변경 피드 한 묶음. 다음 요청은 nextSeq 를 since 로 보낸다. hasMore 가 false 면 지금은 따라잡은 상태
+ */
+@Getter
+public class MemberChangesResponse {
+
+    private final List<MemberChangeDto> changes;
+    private final long nextSeq;
+    private final boolean hasMore;
+
+    public MemberChangesResponse(List<MemberChangeDto> changes, long nextSeq, boolean hasMore) {
+        this.changes = changes;
+        this.nextSeq = nextSeq;
+        this.hasMore = hasMore;
+    }
+}
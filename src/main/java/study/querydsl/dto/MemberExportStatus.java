@@ -0,0 +1,34 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.export.MemberExportFormat;
+import study.querydsl.export.MemberExportJob;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+public class MemberExportStatus {
+
+    private final String jobId;
+    private final MemberExportFormat format;
+    private final MemberExportJob.Status status;
+    private final long rows;
+    private final long bytes;
+    private final String error;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime finishedAt;
+
+    public MemberExportStatus(String jobId, MemberExportFormat format, MemberExportJob.Status status, long rows, long bytes,
+                              String error, LocalDateTime createdAt, LocalDateTime finishedAt) {
+        this.jobId = jobId;
+        this.format = format;
+        this.status = status;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.error = error;
+        this.createdAt = createdAt;
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 조회에서 fields= 로 고를 수 있는 컬럼. 이름은 MemberTeamDto 의 프로퍼티명과 같다
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", false),
+    USERNAME("username", false),
+    AGE("age", false),
+    //member.team_id 외래키로 읽으므로 team 조인이 필요 없다
+    TEAM_ID("teamId", false),
+    TEAM_NAME("teamName", true);
+
+    private final String fieldName;
+    private final boolean teamJoin;
+
+    MemberField(String fieldName, boolean teamJoin) {
+        this.fieldName = fieldName;
+        this.teamJoin = teamJoin;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public boolean needsTeamJoin() {
+        return teamJoin;
+    }
+
+    //"memberId,username" -> [MEMBER_ID, USERNAME], 중복은 한 번만, 순서는 요청 순서
+    public static List<MemberField> parse(String fields) {
+        List<MemberField> parsed = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            MemberField field = of(name.trim());
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        return parsed;
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("조회할 수 없는 필드입니다. fieldName=" + fieldName);
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 회원 CSV 적재 결과. stages 는 split(bytes), parse(rows), write(rows) 단계별 처리량이다.
+ * busyMillis 는 그 단계 스레드들이 일한 시간의 합이고, 큐를 기다린 시간은 빠진다.
+ */
+@Getter
+@ToString
+public class MemberImportResult {
+
+    private final long rows;
+    private final long rejected;
+    private final long teamCacheHits;
+    private final long teamCacheMisses;
+    private final long elapsedMillis;
+    private final List<Stage> stages;
+
+    public MemberImportResult(long rows, long rejected, long teamCacheHits, long teamCacheMisses,
+                              long elapsedMillis, List<Stage> stages) {
+        this.rows = rows;
+        this.rejected = rejected;
+        this.teamCacheHits = teamCacheHits;
+        this.teamCacheMisses = teamCacheMisses;
+        this.elapsedMillis = elapsedMillis;
+        this.stages = stages;
+    }
+
+    @Getter
+    @ToString
+    public static class Stage {
+        private final String stage;
+        private final String unit;
+        private final long items;
+        private final long elapsedMillis;
+        private final long busyMillis;
+        private final double perSecond;
+
+        public Stage(String stage, String unit, long items, long elapsedMillis, long busyMillis, double perSecond) {
+            this.stage = stage;
+            this.unit = unit;
+            this.items = items;
+            this.elapsedMillis = elapsedMillis;
+            this.busyMillis = busyMillis;
+            this.perSecond = perSecond;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import study.querydsl.domain.MemberRole;
 
 @Data
 public class MemberSearchCond {
     //회원명, 팀명, 나이(ageGoe, ageLoe)
 
     private String username;
+    //username 비교 방식, 없으면 EXACT
+    private UsernameMatch usernameMatch;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    private MemberRole memberRole;
 }
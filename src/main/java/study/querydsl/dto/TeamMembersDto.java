@@ -0,0 +1,43 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.Team;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 팀과 소속 회원. 엔티티를 그대로 직렬화하면 Member.team 으로 순환하므로 필요한 값만 옮긴다.
+ */
+@Getter
+public class TeamMembersDto {
+
+    private final Long teamId;
+    private final String teamName;
+    private final List<MemberItem> members;
+
+    public TeamMembersDto(Team team) {
+        this.teamId = team.getId();
+        this.teamName = team.getName();
+        this.members = team.getMembers().stream()
+                .map(MemberItem::new)
+                .collect(Collectors.toList());
+    }
+
+    @Getter
+    public static class MemberItem {
+        private final Long memberId;
+        private final String username;
+        private final int age;
+        private final MemberRole memberRole;
+
+        public MemberItem(Member member) {
+            this.memberId = member.getId();
+            this.username = member.getUsername();
+            this.age = member.getAge();
+            this.memberRole = member.getMemberRole();
+        }
+    }
+}
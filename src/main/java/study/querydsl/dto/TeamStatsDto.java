@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    @QueryProjection
+    public TeamStatsDto(Long teamId, String teamName, Long memberCount, Long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount != null ? memberCount : 0L;
+        this.ageSum = ageSum != null ? ageSum : 0L;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public double getAgeAvg() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
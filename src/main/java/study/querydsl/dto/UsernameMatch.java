@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+/**
+ * MemberSearchCond.username 의 비교 방식. IGNORE_CASE, PREFIX 는 정규화 컬럼(normalized_username)을 비교한다.
+ */
+public enum UsernameMatch {
+    //username 과 정확히 같음
+    EXACT,
+    //대소문자와 앞뒤 공백을 무시하고 같음
+    IGNORE_CASE,
+    //대소문자와 앞뒤 공백을 무시하고 접두어로 시작함
+    PREFIX
+}
@@ -0,0 +1,17 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class UsernameSuggestion {
+
+    private final Long memberId;
+    private final String username;
+
+    public UsernameSuggestion(Long memberId, String username) {
+        this.memberId = memberId;
+        this.username = username;
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.export;
+
+import java.util.Locale;
+
+public enum MemberExportFormat {
+    CSV("text/csv;charset=UTF-8", ".csv"),
+    NDJSON("application/x-ndjson", ".ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    MemberExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static MemberExportFormat from(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("지원하지 않는 내보내기 형식입니다. format=" + format, e);
+        }
+    }
+}
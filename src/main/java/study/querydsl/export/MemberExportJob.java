@@ -0,0 +1,106 @@
+package study.querydsl.export;
+
+import study.querydsl.dto.MemberExportStatus;
+import study.querydsl.dto.MemberSearchCond;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 내보내기 작업 하나의 상태. rows, bytes 는 작업 스레드만 쓰고 조회 스레드는 읽기만 한다.
+ * 상태는 QUEUED -> RUNNING -> DONE | FAILED 로 가고, 끝나기 전에는 언제든 CANCELLED 가 될 수 있다.
+ */
+public class MemberExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final MemberSearchCond cond;
+    private final MemberExportFormat format;
+    private final Path file;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+
+    private volatile long rows;
+    private volatile long bytes;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+    private volatile Future<?> future;
+
+    MemberExportJob(String id, MemberSearchCond cond, MemberExportFormat format, Path file) {
+        this.id = id;
+        this.cond = cond;
+        this.format = format;
+        this.file = file;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public MemberExportFormat getFormat() {
+        return format;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    MemberSearchCond getCond() {
+        return cond;
+    }
+
+    LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    boolean start() {
+        return status.compareAndSet(Status.QUEUED, Status.RUNNING);
+    }
+
+    void progress(long rows, long bytes) {
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    //이미 취소되었으면 false
+    boolean finish(Status result, String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        return status.compareAndSet(Status.RUNNING, result);
+    }
+
+    //끝나지 않은 작업만 취소된다. 실행 중이면 작업 스레드가 다음 묶음 전에 멈춘다
+    boolean cancel() {
+        Status before = status.getAndUpdate(current -> current.isFinished() ? current : Status.CANCELLED);
+        if (before.isFinished()) {
+            return false;
+        }
+        finishedAt = LocalDateTime.now();
+        Future<?> queued = future;
+        if (queued != null) {
+            queued.cancel(false);
+        }
+        return true;
+    }
+
+    public MemberExportStatus toStatus() {
+        return new MemberExportStatus(id, format, status.get(), rows, bytes, error, createdAt, finishedAt);
+    }
+}
@@ -0,0 +1,217 @@
+package study.querydsl.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberQueryRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 검색 결과를 백그라운드에서 임시 파일로 내보낸다. 요청 스레드는 작업 id 만 받아 바로 돌아간다.
+ * member id keyset 으로 chunk-size 건씩 읽어 바로 파일에 쓰므로 메모리에는 한 묶음만 올라간다.
+ * 동시에 도는 작업은 max-concurrent 개, 기다리는 작업은 max-queued 개까지이고 넘치면 RejectedExecutionException 이다.
+ * 끝난 작업의 파일은 retention-ms 가 지나면 지운다.
+ */
+@Slf4j
+@Service
+public class MemberExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] CSV_HEADER = "memberId,username,age,teamId,teamName\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte NEW_LINE = '\n';
+
+    private final MemberQueryRepository memberQueryRepository;
+    private final ObjectWriter rowWriter;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, MemberExportJob> jobs = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final int chunkSize;
+    private final long retentionMillis;
+
+    public MemberExportService(MemberQueryRepository memberQueryRepository,
+                               ObjectMapper objectMapper,
+                               @Value("${member.export.dir:${java.io.tmpdir}}") String directory,
+                               @Value("${member.export.chunk-size:1000}") int chunkSize,
+                               @Value("${member.export.max-concurrent:2}") int maxConcurrent,
+                               @Value("${member.export.max-queued:10}") int maxQueued,
+                               @Value("${member.export.retention-ms:3600000}") long retentionMillis) {
+        this.memberQueryRepository = memberQueryRepository;
+        this.rowWriter = objectMapper.writerFor(MemberTeamDto.class);
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), new CustomizableThreadFactory("member-export-"));
+        this.directory = Paths.get(directory);
+        this.chunkSize = chunkSize;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public MemberExportJob submit(MemberSearchCond memberSearchCond, MemberExportFormat format) {
+        String jobId = UUID.randomUUID().toString();
+        MemberExportJob job = new MemberExportJob(jobId, memberSearchCond, format,
+                directory.resolve("member-export-" + jobId + format.getExtension()));
+        jobs.put(jobId, job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw e;
+        }
+        log.info("member export submitted. jobId = {}, format = {}, cond = {}", jobId, format, memberSearchCond);
+        return job;
+    }
+
+    public Optional<MemberExportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    //끝나지 않았으면 취소하고, 작업과 파일을 지운다. 없는 작업이면 false
+    public boolean remove(String jobId) {
+        MemberExportJob job = jobs.remove(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        deleteFile(job);
+        return true;
+    }
+
+    private void run(MemberExportJob job) {
+        if (!job.start()) {
+            return;
+        }
+
+        long rows = 0;
+        long bytes = 0;
+        try (CountingOutputStream out = new CountingOutputStream(Files.newOutputStream(job.getFile()))) {
+            if (job.getFormat() == MemberExportFormat.CSV) {
+                out.write(CSV_HEADER);
+            }
+
+            Long lastMemberId = null;
+            while (job.getStatus() == MemberExportJob.Status.RUNNING) {
+                List<MemberTeamDto> chunk = memberQueryRepository.searchAfter(job.getCond(), lastMemberId, chunkSize);
+                for (MemberTeamDto row : chunk) {
+                    writeRow(job.getFormat(), row, out);
+                }
+                out.flush();
+                rows += chunk.size();
+                bytes = out.count;
+                job.progress(rows, bytes);
+
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                lastMemberId = chunk.get(chunk.size() - 1).getMemberId();
+            }
+        } catch (Exception e) {
+            log.warn("member export failed. jobId = {}", job.getId(), e);
+            job.finish(MemberExportJob.Status.FAILED, e.getMessage());
+            deleteFile(job);
+            return;
+        }
+
+        if (job.finish(MemberExportJob.Status.DONE, null)) {
+            log.info("member export finished. jobId = {}, rows = {}, bytes = {}", job.getId(), rows, bytes);
+        } else {
+            //쓰는 도중 취소되었다
+            deleteFile(job);
+        }
+    }
+
+    private void writeRow(MemberExportFormat format, MemberTeamDto row, OutputStream out) throws IOException {
+        if (format == MemberExportFormat.NDJSON) {
+            out.write(rowWriter.writeValueAsBytes(row));
+            out.write(NEW_LINE);
+            return;
+        }
+        String line = row.getMemberId() + "," + csv(row.getUsername()) + "," + row.getAge() + ","
+                + (row.getTeamId() != null ? row.getTeamId() : "") + "," + csv(row.getTeamName()) + "\n";
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //쉼표, 따옴표, 줄바꿈이 있을 때만 따옴표로 감싼다
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Scheduled(fixedDelayString = "${member.export.cleanup-interval-ms:60000}")
+    public void removeExpired() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(retentionMillis));
+        jobs.values().removeIf(job -> {
+            LocalDateTime finishedAt = job.getFinishedAt();
+            if (!job.getStatus().isFinished() || finishedAt == null || finishedAt.isAfter(expiredBefore)) {
+                return false;
+            }
+            deleteFile(job);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(job -> {
+            job.cancel();
+            deleteFile(job);
+        });
+        jobs.clear();
+    }
+
+    private void deleteFile(MemberExportJob job) {
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("member export file could not be deleted. file = {}", job.getFile(), e);
+        }
+    }
+
+    private static class CountingOutputStream extends BufferedOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out, WRITE_BUFFER_SIZE);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            super.write(b);
+            count++;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.id;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 시각(ms) | node | sequence 로 64bit id 를 만든다. 노드마다 DB 시퀀스 없이 발급해도 겹치지 않고 시간순으로 커진다.
+ * 마지막 시각과 sequence 를 AtomicLong 하나에 담아 CAS 로 갱신하므로 락을 잡지 않는다.
+ * 같은 ms 에 sequence 가 다 차거나 시계가 뒤로 가면 논리 시각을 앞당겨 계속 발급하되, 시계보다 maxLead 이상 앞서지는 않고 기다린다.
+ * 그래서 이전 프로세스가 낸 id 의 시각은 그 프로세스가 끝난 시각 + maxLead 를 넘지 않는다.
+ * 새 프로세스는 JVM 시작 시각 + maxLead 다음부터 발급하므로, 재기동 사이에 시계가 뒤로 가지 않는 한 이전 id 와 겹치지 않는다.
+ */
+public class SnowflakeIdGenerator {
+
+    //2022-01-01T00:00:00Z
+    public static final long DEFAULT_EPOCH = 1_640_995_200_000L;
+    public static final long DEFAULT_MAX_LEAD_MILLIS = 1_000L;
+
+    private static final long LEAD_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final Map<List<Long>, SnowflakeIdGenerator> SHARED = new ConcurrentHashMap<>();
+
+    private final long epochMillis;
+    private final long nodeId;
+    private final int sequenceBits;
+    private final int timeShift;
+    private final long maxTime;
+    private final long maxLeadMillis;
+    private final LongSupplier clock;
+
+    //(epoch 부터의 논리 시각 << sequenceBits) | sequence, sequence 가 넘치면 자연히 시각으로 올림된다
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long epochMillis, long nodeId, int nodeBits, int sequenceBits) {
+        this(epochMillis, nodeId, nodeBits, sequenceBits, DEFAULT_MAX_LEAD_MILLIS);
+    }
+
+    public SnowflakeIdGenerator(long epochMillis, long nodeId, int nodeBits, int sequenceBits, long maxLeadMillis) {
+        this(epochMillis, nodeId, nodeBits, sequenceBits, maxLeadMillis,
+                ManagementFactory.getRuntimeMXBean().getStartTime() + maxLeadMillis, System::currentTimeMillis);
+    }
+
+    //notBeforeMillis 는 이전 프로세스가 냈을 수 있는 마지막 시각. 그 다음 ms 부터 발급한다
+    SnowflakeIdGenerator(long epochMillis, long nodeId, int nodeBits, int sequenceBits, long maxLeadMillis,
+                         long notBeforeMillis, LongSupplier clock) {
+        if (nodeBits < 0 || sequenceBits < 1 || nodeBits + sequenceBits > 31) {
+            throw new IllegalArgumentException("nodeBits + sequenceBits 는 1 ~ 31 이어야 합니다. nodeBits="
+                    + nodeBits + ", sequenceBits=" + sequenceBits);
+        }
+        if (nodeId < 0 || nodeId >= 1L << nodeBits) {
+            throw new IllegalArgumentException("nodeId 는 0 이상 " + (1L << nodeBits) + " 미만이어야 합니다. nodeId=" + nodeId);
+        }
+        if (epochMillis > clock.getAsLong()) {
+            throw new IllegalArgumentException("epoch 가 현재 시각보다 뒤입니다. epochMillis=" + epochMillis);
+        }
+        if (maxLeadMillis < 1) {
+            throw new IllegalArgumentException("maxLeadMillis 는 1 이상이어야 합니다. maxLeadMillis=" + maxLeadMillis);
+        }
+        this.epochMillis = epochMillis;
+        this.nodeId = nodeId;
+        this.sequenceBits = sequenceBits;
+        this.timeShift = nodeBits + sequenceBits;
+        this.maxTime = (1L << (63 - timeShift)) - 1;
+        this.maxLeadMillis = maxLeadMillis;
+        this.clock = clock;
+        this.state.set(Math.max(0, notBeforeMillis + 1 - epochMillis) << sequenceBits);
+    }
+
+    //같은 노드 설정의 발급처(JPA 식별자 생성기, JDBC 적재, 테스트마다 뜨는 스프링 컨텍스트 등)가 한 JVM 안에서 같은 카운터를 쓰게 한다. 따로 만들면 id 가 겹칠 수 있다
+    public static SnowflakeIdGenerator shared(long epochMillis, long nodeId, int nodeBits, int sequenceBits, long maxLeadMillis) {
+        return SHARED.computeIfAbsent(Arrays.asList(epochMillis, nodeId, (long) nodeBits, (long) sequenceBits, maxLeadMillis),
+                key -> new SnowflakeIdGenerator(epochMillis, nodeId, nodeBits, sequenceBits, maxLeadMillis));
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - epochMillis;
+            long next = now > current >>> sequenceBits ? now << sequenceBits : current + 1;
+            if ((next >>> sequenceBits) - now > maxLeadMillis) {
+                //시계가 따라올 때까지 기다린다
+                LockSupport.parkNanos(LEAD_WAIT_NANOS);
+                continue;
+            }
+            if (state.compareAndSet(current, next)) {
+                return compose(next);
+            }
+        }
+    }
+
+    public long timestampOf(long id) {
+        return (id >>> timeShift) + epochMillis;
+    }
+
+    public long nodeIdOf(long id) {
+        return (id >>> sequenceBits) & ((1L << (timeShift - sequenceBits)) - 1);
+    }
+
+    private long compose(long next) {
+        long time = next >>> sequenceBits;
+        if (time > maxTime) {
+            throw new IllegalStateException("id 의 시각 비트가 소진되었습니다. epoch 를 옮겨야 합니다.");
+        }
+        long sequence = next & ((1L << sequenceBits) - 1);
+        return time << timeShift | nodeId << sequenceBits | sequence;
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * {@link SnowflakeIdGenerator} 로 id 를 발급하는 Hibernate 식별자 생성기. 시퀀스 조회 없이 persist 시점에 id 가 정해진다.
+ * 설정은 spring.jpa.properties.id.snowflake.* 로 주고, @GenericGenerator parameters 가 있으면 그 값을 먼저 쓴다.
+ * IdGeneratorConfig 의 빈과 설정이 같으면 같은 카운터를 쓴다. node-id 는 기본값이 없고 노드마다 달라야 한다.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY = "study.querydsl.id.SnowflakeIdentifierGenerator";
+
+    public static final String NODE_ID = "id.snowflake.node-id";
+    public static final String EPOCH = "id.snowflake.epoch";
+    public static final String NODE_BITS = "id.snowflake.node-bits";
+    public static final String SEQUENCE_BITS = "id.snowflake.sequence-bits";
+    public static final String MAX_LEAD_MS = "id.snowflake.max-lead-ms";
+
+    private SnowflakeIdGenerator generator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String nodeId = setting(params, settings, NODE_ID);
+        if (nodeId == null) {
+            throw new MappingException("spring.jpa.properties." + NODE_ID + " 를 노드마다 다르게 지정해야 합니다.");
+        }
+        try {
+            generator = SnowflakeIdGenerator.shared(
+                    longSetting(params, settings, EPOCH, SnowflakeIdGenerator.DEFAULT_EPOCH),
+                    Long.parseLong(nodeId),
+                    (int) longSetting(params, settings, NODE_BITS, 10),
+                    (int) longSetting(params, settings, SEQUENCE_BITS, 12),
+                    longSetting(params, settings, MAX_LEAD_MS, SnowflakeIdGenerator.DEFAULT_MAX_LEAD_MILLIS));
+        } catch (IllegalArgumentException e) {
+            throw new MappingException("snowflake id 설정이 잘못되었습니다. " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return generator.nextId();
+    }
+
+    private long longSetting(Properties params, Map<?, ?> settings, String key, long defaultValue) {
+        String value = setting(params, settings, key);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    private String setting(Properties params, Map<?, ?> settings, String key) {
+        Object value = params.getProperty(key);
+        if (value == null) {
+            value = settings.get(key);
+        }
+        return value != null ? value.toString().trim() : null;
+    }
+}
@@ -0,0 +1,296 @@
+package study.querydsl.index;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberSearchCond;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * team_id, memberRole, age 별 비트맵으로 MemberSearchCond 의 count 와 후보 id 를 계산하는 메모리 인덱스.
+ * username 조건은 다루지 않으므로 그런 조건은 supports() 가 false 를 돌려주고 SQL 로 처리한다.
+ * 쓰기는 커밋 이후 {@link MemberBitmapIndexListener} 가 반영하고, 벌크 쿼리 이후에는 markStale() 로 재구축을 요청한다.
+ * 다른 노드의 커밋은 이 JVM 의 리스너를 거치지 않으므로 단일 노드 배포에서만 쓴다. 기본값은 꺼져 있다(member.bitmap-index.enabled).
+ */
+@Slf4j
+@Component
+public class MemberBitmapIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Getter
+    private final boolean enabled;
+
+    private Snapshot snapshot = new Snapshot();
+    private List<Consumer<Snapshot>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    public MemberBitmapIndex(@Value("${member.bitmap-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean supports(MemberSearchCond memberSearchCond) {
+        return enabled && ready && isEmpty(memberSearchCond.getUsername());
+    }
+
+    public boolean isStale() {
+        return !ready;
+    }
+
+    public void markStale() {
+        ready = false;
+    }
+
+    public SearchResult search(MemberSearchCond memberSearchCond, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matched = snapshot.match(memberSearchCond);
+            return new SearchResult(matched.cardinality(), snapshot.toIds(matched.toArray(offset, limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(MemberSearchCond memberSearchCond) {
+        lock.readLock().lock();
+        try {
+            return snapshot.match(memberSearchCond).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putMember(Long memberId, Long teamId, MemberRole memberRole, int age) {
+        apply(snapshot -> snapshot.putMember(memberId, teamId, memberRole, age));
+    }
+
+    public void removeMember(Long memberId) {
+        apply(snapshot -> snapshot.removeMember(memberId));
+    }
+
+    public void putTeam(Long teamId, String teamName) {
+        apply(snapshot -> snapshot.putTeam(teamId, teamName));
+    }
+
+    public void removeTeam(Long teamId) {
+        apply(snapshot -> snapshot.removeTeam(teamId));
+    }
+
+    //재구축 중 들어온 변경은 모아 두었다가 새 스냅샷에 다시 적용한다
+    public void startRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishRebuild(Snapshot rebuilt) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+            }
+            pendingDuringRebuild = null;
+            snapshot = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member bitmap index rebuilt. members = {}", rebuilt.memberCount());
+    }
+
+    //꺼져 있으면 읽지도 재구축하지도 않으므로 쌓지 않는다
+    private void apply(Consumer<Snapshot> change) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(snapshot);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+            //지운 순번이 많이 쌓였거나 순번이 id 순서를 벗어나면 재구축해서 순번을 다시 촘촘하게 붙인다
+            if (snapshot.needsRebuild()) {
+                ready = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Getter
+    public static class SearchResult {
+        private final long total;
+        private final List<Long> memberIds;
+
+        SearchResult(long total, List<Long> memberIds) {
+            this.total = total;
+            this.memberIds = memberIds;
+        }
+    }
+
+    /**
+     * 비트맵은 member id 대신 0 부터 붙인 순번(ordinal)을 담는다. id 가 int 범위를 넘어도 색인할 수 있다.
+     * 페이지를 순번 순서로 자르므로 순번은 id 순서와 같아야 한다. 그래서 지운 순번을 바로 다시 쓰지 않고,
+     * 지운 순번이 절반을 넘거나 더 작은 id 가 뒤에 들어오면 needsRebuild() 로 알려 id 순으로 다시 만든다.
+     */
+    public static class Snapshot {
+
+        private static final int MIN_FREED_FOR_REBUILD = 1024;
+
+        private final Map<Long, Row> rows = new HashMap<>();
+        private long[] idByOrdinal = new long[1024];
+        private int nextOrdinal;
+        private int freedOrdinals;
+        private boolean outOfOrder;
+
+        private final CompressedBitmap withTeam = new CompressedBitmap();
+        private final Map<Long, CompressedBitmap> byTeam = new HashMap<>();
+        private final Map<MemberRole, CompressedBitmap> byRole = new EnumMap<>(MemberRole.class);
+        private final NavigableMap<Integer, CompressedBitmap> byAge = new TreeMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+
+        public void putMember(Long memberId, Long teamId, MemberRole memberRole, int age) {
+            Row row = rows.get(memberId);
+            if (row == null) {
+                row = new Row(newOrdinal(memberId));
+                rows.put(memberId, row);
+            } else {
+                if (Objects.equals(row.teamId, teamId) && row.memberRole == memberRole && row.age == age) {
+                    return;
+                }
+                unindex(row);
+            }
+            row.teamId = teamId;
+            row.memberRole = memberRole;
+            row.age = age;
+            index(row);
+        }
+
+        public void removeMember(Long memberId) {
+            Row row = rows.remove(memberId);
+            if (row != null) {
+                unindex(row);
+                freedOrdinals++;
+            }
+        }
+
+        public void putTeam(Long teamId, String teamName) {
+            teamNames.put(teamId, teamName);
+        }
+
+        public void removeTeam(Long teamId) {
+            teamNames.remove(teamId);
+        }
+
+        int memberCount() {
+            return rows.size();
+        }
+
+        boolean needsRebuild() {
+            return outOfOrder || (freedOrdinals >= MIN_FREED_FOR_REBUILD && freedOrdinals * 2 > nextOrdinal);
+        }
+
+        //inner join 과 같게 팀이 없는 회원은 항상 제외한다
+        CompressedBitmap match(MemberSearchCond memberSearchCond) {
+            CompressedBitmap result = withTeam;
+
+            if (!isEmpty(memberSearchCond.getTeamName())) {
+                List<CompressedBitmap> teams = new ArrayList<>();
+                teamNames.forEach((teamId, teamName) -> {
+                    if (memberSearchCond.getTeamName().equals(teamName) && byTeam.containsKey(teamId)) {
+                        teams.add(byTeam.get(teamId));
+                    }
+                });
+                result = result.and(CompressedBitmap.or(teams));
+            }
+
+            if (memberSearchCond.getMemberRole() != null) {
+                result = result.and(byRole.getOrDefault(memberSearchCond.getMemberRole(), new CompressedBitmap()));
+            }
+
+            if (memberSearchCond.getAgeGoe() != null || memberSearchCond.getAgeLoe() != null) {
+                result = result.and(CompressedBitmap.or(ageRange(memberSearchCond.getAgeGoe(), memberSearchCond.getAgeLoe()).values()));
+            }
+            return result;
+        }
+
+        List<Long> toIds(int[] ordinals) {
+            Long[] ids = new Long[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                ids[i] = idByOrdinal[ordinals[i]];
+            }
+            return Collections.unmodifiableList(Arrays.asList(ids));
+        }
+
+        private NavigableMap<Integer, CompressedBitmap> ageRange(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe != null && ageLoe != null) {
+                return ageGoe > ageLoe ? Collections.emptyNavigableMap() : byAge.subMap(ageGoe, true, ageLoe, true);
+            }
+            return ageGoe != null ? byAge.tailMap(ageGoe, true) : byAge.headMap(ageLoe, true);
+        }
+
+        private int newOrdinal(Long memberId) {
+            if (nextOrdinal > 0 && memberId < idByOrdinal[nextOrdinal - 1]) {
+                outOfOrder = true;
+            }
+            if (nextOrdinal == idByOrdinal.length) {
+                idByOrdinal = Arrays.copyOf(idByOrdinal, nextOrdinal * 2);
+            }
+            idByOrdinal[nextOrdinal] = memberId;
+            return nextOrdinal++;
+        }
+
+        private void index(Row row) {
+            if (row.teamId != null) {
+                withTeam.add(row.ordinal);
+                byTeam.computeIfAbsent(row.teamId, key -> new CompressedBitmap()).add(row.ordinal);
+            }
+            if (row.memberRole != null) {
+                byRole.computeIfAbsent(row.memberRole, key -> new CompressedBitmap()).add(row.ordinal);
+            }
+            byAge.computeIfAbsent(row.age, key -> new CompressedBitmap()).add(row.ordinal);
+        }
+
+        private void unindex(Row row) {
+            withTeam.remove(row.ordinal);
+            if (row.teamId != null) {
+                byTeam.get(row.teamId).remove(row.ordinal);
+            }
+            if (row.memberRole != null) {
+                byRole.get(row.memberRole).remove(row.ordinal);
+            }
+            byAge.get(row.age).remove(row.ordinal);
+        }
+
+        private static class Row {
+            private final int ordinal;
+            private Long teamId;
+            private MemberRole memberRole;
+            private int age;
+
+            Row(int ordinal) {
+                this.ordinal = ordinal;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.index;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.Team;
+import study.querydsl.support.AfterCommit;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+public class MemberBitmapIndexListener {
+
+    private final MemberBitmapIndex memberBitmapIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (!memberBitmapIndex.isEnabled()) {
+            return;
+        }
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long memberId = member.getId();
+            Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+            MemberRole memberRole = member.getMemberRole();
+            int age = member.getAge();
+            AfterCommit.run(() -> memberBitmapIndex.putMember(memberId, teamId, memberRole, age));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            Long teamId = team.getId();
+            String teamName = team.getName();
+            AfterCommit.run(() -> memberBitmapIndex.putTeam(teamId, teamName));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (!memberBitmapIndex.isEnabled()) {
+            return;
+        }
+        if (entity instanceof Member) {
+            Long memberId = ((Member) entity).getId();
+            AfterCommit.run(() -> memberBitmapIndex.removeMember(memberId));
+        } else if (entity instanceof Team) {
+            Long teamId = ((Team) entity).getId();
+            AfterCommit.run(() -> memberBitmapIndex.removeTeam(teamId));
+        }
+    }
+}
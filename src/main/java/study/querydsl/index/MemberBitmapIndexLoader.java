@@ -0,0 +1,57 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@Component
+@RequiredArgsConstructor
+public class MemberBitmapIndexLoader {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberBitmapIndex memberBitmapIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (memberBitmapIndex.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.bitmap-index.stale-check-interval-ms:5000}")
+    public void rebuildIfStale() {
+        if (memberBitmapIndex.isEnabled() && memberBitmapIndex.isStale()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        memberBitmapIndex.startRebuild();
+        MemberBitmapIndex.Snapshot snapshot = new MemberBitmapIndex.Snapshot();
+
+        for (Tuple tuple : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            snapshot.putTeam(tuple.get(team.id), tuple.get(team.name));
+        }
+
+        for (Tuple tuple : queryFactory
+                .select(member.id, member.team.id, member.memberRole, member.age)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch()) {
+            snapshot.putMember(
+                    tuple.get(member.id),
+                    tuple.get(member.team.id),
+                    tuple.get(member.memberRole),
+                    tuple.get(member.age));
+        }
+
+        memberBitmapIndex.finishRebuild(snapshot);
+    }
+}
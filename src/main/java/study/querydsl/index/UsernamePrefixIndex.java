@@ -0,0 +1,177 @@
+package study.querydsl.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.Member;
+import study.querydsl.dto.UsernameSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 자동완성용 username 접두어 인덱스. 정규화한 username 을 정렬된 맵에 두고
+ * 접두어 구간의 앞에서부터 K 개만 읽으므로 O(log n + K) 에 DB 없이 답한다.
+ * 대소문자와 앞뒤 공백은 무시하고, 같은 정규화 이름은 member id 순으로 나온다.
+ */
+@Slf4j
+@Component
+public class UsernamePrefixIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Snapshot snapshot = new Snapshot();
+    private List<Consumer<Snapshot>> pendingDuringRebuild;
+
+    public static String normalize(String username) {
+        return Member.normalizeUsername(username);
+    }
+
+    public List<UsernameSuggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized == null || normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            return snapshot.suggest(normalized, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Long memberId, String username) {
+        apply(snapshot -> snapshot.put(memberId, username));
+    }
+
+    public void remove(Long memberId) {
+        apply(snapshot -> snapshot.remove(memberId));
+    }
+
+    //재구축 중 들어온 변경은 모아 두었다가 새 스냅샷에 다시 적용한다
+    public void startRebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishRebuild(Snapshot rebuilt) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+            }
+            pendingDuringRebuild = null;
+            snapshot = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("username prefix index rebuilt. members = {}", rebuilt.size());
+    }
+
+    private void apply(Consumer<Snapshot> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(snapshot);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static class Snapshot {
+
+        private static final long[] EMPTY = new long[0];
+
+        //정규화 username -> 정렬된 member id
+        private final NavigableMap<String, long[]> idsByKey = new TreeMap<>();
+        //member id -> 원래 username, 이름 변경 시 이전 키를 지우는 데 쓴다
+        private final Map<Long, String> usernames = new HashMap<>();
+
+        public void put(Long memberId, String username) {
+            String previous = usernames.get(memberId);
+            if (previous != null && previous.equals(username)) {
+                return;
+            }
+            remove(memberId);
+            if (username == null) {
+                return;
+            }
+            usernames.put(memberId, username);
+            idsByKey.merge(normalize(username), new long[]{memberId}, Snapshot::insert);
+        }
+
+        public void remove(Long memberId) {
+            String previous = usernames.remove(memberId);
+            if (previous == null) {
+                return;
+            }
+            String key = normalize(previous);
+            long[] ids = delete(idsByKey.getOrDefault(key, EMPTY), memberId);
+            if (ids.length == 0) {
+                idsByKey.remove(key);
+            } else {
+                idsByKey.put(key, ids);
+            }
+        }
+
+        public int size() {
+            return usernames.size();
+        }
+
+        private List<UsernameSuggestion> suggest(String prefix, int limit) {
+            List<UsernameSuggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+            //prefix 이상인 첫 키부터 prefix 로 시작하지 않는 키가 나올 때까지
+            for (Map.Entry<String, long[]> entry : idsByKey.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) {
+                    break;
+                }
+                for (long memberId : entry.getValue()) {
+                    suggestions.add(new UsernameSuggestion(memberId, usernames.get(memberId)));
+                    if (suggestions.size() == limit) {
+                        return suggestions;
+                    }
+                }
+            }
+            return suggestions;
+        }
+
+        private static long[] insert(long[] ids, long[] added) {
+            long memberId = added[0];
+            int index = Arrays.binarySearch(ids, memberId);
+            if (index >= 0) {
+                return ids;
+            }
+            int at = -index - 1;
+            long[] result = new long[ids.length + 1];
+            System.arraycopy(ids, 0, result, 0, at);
+            result[at] = memberId;
+            System.arraycopy(ids, at, result, at + 1, ids.length - at);
+            return result;
+        }
+
+        private static long[] delete(long[] ids, long memberId) {
+            int index = Arrays.binarySearch(ids, memberId);
+            if (index < 0) {
+                return ids;
+            }
+            long[] result = new long[ids.length - 1];
+            System.arraycopy(ids, 0, result, 0, index);
+            System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.index;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.domain.Member;
+import study.querydsl.support.AfterCommit;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+public class UsernamePrefixIndexListener {
+
+    private final UsernamePrefixIndex usernamePrefixIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Member member) {
+        Long memberId = member.getId();
+        String username = member.getUsername();
+        AfterCommit.run(() -> usernamePrefixIndex.put(memberId, username));
+    }
+
+    @PostRemove
+    public void onRemove(Member member) {
+        Long memberId = member.getId();
+        AfterCommit.run(() -> usernamePrefixIndex.remove(memberId));
+    }
+}
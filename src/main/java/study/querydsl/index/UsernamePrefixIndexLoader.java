@@ -0,0 +1,83 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.MemberChangesResponse;
+import study.querydsl.outbox.MemberOutboxSequencer;
+import study.querydsl.service.MemberChangeFeedService;
+
+import static study.querydsl.domain.QMember.member;
+
+/**
+ * 인덱스는 노드마다 메모리에 있으므로, 엔티티 리스너는 이 노드의 변경만 반영한다.
+ * 다른 노드의 변경과 벌크 변경은 변경 피드를 노드마다 따로 따라가며 반영한다.
+ * outbox 구독자는 노드 중 한 곳에만 전달되므로 구독자로 만들지 않고, 읽은 위치(seq)도 노드 메모리에만 둔다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernamePrefixIndexLoader {
+
+    private final JPAQueryFactory queryFactory;
+    private final UsernamePrefixIndex usernamePrefixIndex;
+    private final MemberOutboxSequencer memberOutboxSequencer;
+    private final MemberChangeFeedService memberChangeFeedService;
+
+    @Value("${member.username-index.follow-batch-size:1000}")
+    private int followBatchSize;
+
+    private volatile long lastSeq;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    //따라간 뒤의 변경을 다시 적용해도 지금 회원 상태로 덮어쓸 뿐이라, seq 를 먼저 읽고 회원을 읽는다
+    public synchronized void rebuild() {
+        long seq = memberOutboxSequencer.lastSeq();
+        usernamePrefixIndex.startRebuild();
+        UsernamePrefixIndex.Snapshot snapshot = new UsernamePrefixIndex.Snapshot();
+
+        for (Tuple tuple : queryFactory.select(member.id, member.username).from(member).fetch()) {
+            snapshot.put(tuple.get(member.id), tuple.get(member.username));
+        }
+
+        usernamePrefixIndex.finishRebuild(snapshot);
+        lastSeq = seq;
+    }
+
+    //반영한 변경 수. 보관 기간이 지나 이어받을 수 없으면 전체를 다시 만든다
+    @Scheduled(fixedDelayString = "${member.username-index.follow-interval-ms:1000}",
+            initialDelayString = "${member.username-index.follow-interval-ms:1000}")
+    public synchronized int follow() {
+        int applied = 0;
+        MemberChangesResponse response;
+        try {
+            do {
+                response = memberChangeFeedService.findChanges(lastSeq, followBatchSize);
+                for (MemberChangeDto change : response.getChanges()) {
+                    if (change.isDeleted()) {
+                        usernamePrefixIndex.remove(change.getMemberId());
+                    } else {
+                        usernamePrefixIndex.put(change.getMemberId(), change.getUsername());
+                    }
+                }
+                applied += response.getChanges().size();
+                lastSeq = response.getNextSeq();
+            } while (response.isHasMore());
+        } catch (IllegalStateException e) {
+            log.warn("username prefix index fell behind outbox retention. rebuilding. {}", e.getMessage());
+            rebuild();
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,391 @@
+package study.querydsl.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberDataVersion;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberChangeType;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.index.MemberBitmapIndex;
+import study.querydsl.index.UsernamePrefixIndex;
+import study.querydsl.outbox.MemberOutboxWriter;
+import study.querydsl.readmodel.MemberSearchViewWriter;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.service.TeamStatsService;
+import study.querydsl.support.AfterCommit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 CSV 파일을 split -> parse -> write 세 단계로 적재한다. 단계 사이는 크기가 정해진 큐라서 느린 단계가 앞 단계를 멈춰 세운다.
+ * split 은 파일을 줄 경계에 맞춰 잘라 메모리 매핑하고, parse 스레드들이 묶음을 나눠 읽으며,
+ * write 스레드들이 batch-size 행씩 한 트랜잭션에서 팀명을 team_id 로 바꾸고(없는 팀은 만든다) member_id 로 upsert 한다.
+ * member_id 가 없는 행은 형식 오류로 버린다.
+ * 회원은 JPA 를 거치지 않으므로 읽기 모델과 username 인덱스는 묶음마다, 비트맵 인덱스, 데이터 버전, 팀 집계는 끝난 뒤 한 번 맞춘다.
+ * 중간에 실패하면 이미 커밋된 묶음은 남는다. 같은 파일을 다시 적재해도 결과는 같다.
+ */
+@Slf4j
+@Service
+public class MemberCsvImporter {
+
+    //DB 전용 문법(merge ... key) 없이 update 후 없는 행만 insert 한다. create_date 는 이미 있는 회원이면 그대로 둔다
+    private static final String UPDATE_SQL =
+            "update member set username = ?, normalized_username = ?, age = ?, member_role = ?, team_id = ?, update_date = ?" +
+            " where member_id = ?";
+    private static final String INSERT_SQL =
+            "insert into member (member_id, username, normalized_username, age, member_role, team_id, create_date, update_date)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?)";
+    //같은 팀이나 member_id 를 다른 묶음과 동시에 넣어 unique 에 걸리거나 서로 기다리다 실패하면 묶음을 다시 쓴다
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final int MAX_LOGGED_REJECTS = 10;
+    private static final long POLL_MILLIS = 100;
+
+    //단계 끝을 알리는 표식. 내용이 아니라 참조로 비교한다
+    private static final Chunk END_OF_CHUNKS = new Chunk(ByteBuffer.allocate(0), false);
+    private static final List<MemberCsvParser.Row> END_OF_BATCHES = new ArrayList<>(0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransaction;
+    private final TeamRepository teamRepository;
+    private final MemberSearchViewWriter memberSearchViewWriter;
+    private final MemberOutboxWriter memberOutboxWriter;
+    private final MemberDataVersion memberDataVersion;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final UsernamePrefixIndex usernamePrefixIndex;
+    private final TeamStatsService teamStatsService;
+
+    private final int chunkBytes;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    public MemberCsvImporter(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             TeamRepository teamRepository,
+                             MemberSearchViewWriter memberSearchViewWriter,
+                             MemberOutboxWriter memberOutboxWriter,
+                             MemberDataVersion memberDataVersion,
+                             MemberBitmapIndex memberBitmapIndex,
+                             UsernamePrefixIndex usernamePrefixIndex,
+                             TeamStatsService teamStatsService,
+                             @Value("${member.import.chunk-bytes:8388608}") int chunkBytes,
+                             @Value("${member.import.parser-threads:4}") int parserThreads,
+                             @Value("${member.import.writer-threads:2}") int writerThreads,
+                             @Value("${member.import.batch-size:1000}") int batchSize,
+                             @Value("${member.import.queue-capacity:8}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.teamRepository = teamRepository;
+        this.memberSearchViewWriter = memberSearchViewWriter;
+        this.memberOutboxWriter = memberOutboxWriter;
+        this.memberDataVersion = memberDataVersion;
+        this.memberBitmapIndex = memberBitmapIndex;
+        this.usernamePrefixIndex = usernamePrefixIndex;
+        this.teamStatsService = teamStatsService;
+        this.chunkBytes = chunkBytes;
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public MemberImportResult importFile(Path file) {
+        long start = System.nanoTime();
+        Run run = new Run();
+        ExecutorService executor = Executors.newFixedThreadPool(parserThreads + writerThreads);
+        try {
+            CountDownLatch parsersDone = new CountDownLatch(parserThreads);
+            for (int i = 0; i < parserThreads; i++) {
+                executor.execute(() -> run.guard(() -> {
+                    try {
+                        parse(run);
+                    } finally {
+                        parsersDone.countDown();
+                    }
+                }));
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                executor.execute(() -> run.guard(() -> write(run)));
+            }
+
+            run.guard(() -> split(file, run));
+            //parse 가 모두 끝나야 write 에 끝을 알린다
+            for (int i = 0; i < parserThreads; i++) {
+                run.put(run.chunks, END_OF_CHUNKS);
+            }
+            while (!parsersDone.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                run.checkFailure();
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                run.put(run.batches, END_OF_BATCHES);
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                run.checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failure.compareAndSet(null, e);
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+            //실패해도 커밋된 묶음이 있으면 파생 상태를 맞춘다
+            if (run.rows.sum() > 0) {
+                syncAfterImport();
+            }
+        }
+
+        Throwable failure = run.failure.get();
+        if (failure != null) {
+            throw new IllegalStateException("회원 CSV 적재에 실패했습니다. 커밋된 행 = " + run.rows.sum() + ", file=" + file, failure);
+        }
+
+        MemberImportResult result = new MemberImportResult(run.rows.sum(), run.rejected.sum(),
+                run.teamIds.hits(), run.teamIds.misses(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                Arrays.asList(run.splitMeter.toStage(), run.parseMeter.toStage(), run.writeMeter.toStage()));
+        log.info("member csv import finished. file = {}, {}", file, result);
+        return result;
+    }
+
+    //줄 경계에 맞춰 chunk-bytes 이하로 잘라 매핑한다. 매핑은 GC 가 풀어 주므로 채널은 바로 닫아도 된다
+    private void split(Path file, Run run) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long splitStart = System.nanoTime();
+                long length = Math.min(chunkBytes, size - position);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    while (end > 0 && mapped.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IllegalArgumentException("한 줄이 chunk-bytes(" + chunkBytes + ")보다 깁니다. position=" + position);
+                    }
+                }
+                mapped.limit(end);
+                run.splitMeter.record(splitStart, System.nanoTime(), end);
+                run.put(run.chunks, new Chunk(mapped, position == 0));
+                position += end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void parse(Run run) {
+        MemberCsvParser parser = new MemberCsvParser();
+        while (true) {
+            Chunk chunk = run.take(run.chunks);
+            if (chunk == END_OF_CHUNKS) {
+                return;
+            }
+
+            long parseStart = System.nanoTime();
+            List<List<MemberCsvParser.Row>> batches = new ArrayList<>();
+            batches.add(new ArrayList<>(batchSize));
+            int rejected = parser.parse(chunk.buffer, chunk.first, row -> {
+                List<MemberCsvParser.Row> current = batches.get(batches.size() - 1);
+                if (current.size() == batchSize) {
+                    current = new ArrayList<>(batchSize);
+                    batches.add(current);
+                }
+                current.add(row);
+            });
+            long parsed = batches.stream().mapToLong(List::size).sum();
+            run.parseMeter.record(parseStart, System.nanoTime(), parsed);
+            if (rejected > 0) {
+                run.reject(rejected, chunk);
+            }
+
+            for (List<MemberCsvParser.Row> rows : batches) {
+                if (!rows.isEmpty()) {
+                    run.put(run.batches, rows);
+                }
+            }
+        }
+    }
+
+    private void write(Run run) {
+        while (true) {
+            List<MemberCsvParser.Row> batch = run.take(run.batches);
+            if (batch == END_OF_BATCHES) {
+                return;
+            }
+
+            long writeStart = System.nanoTime();
+            List<MemberCsvParser.Row> rows = lastRowPerMember(batch);
+            writeBatch(rows, run.teamIds);
+            run.writeMeter.record(writeStart, System.nanoTime(), rows.size());
+            run.rows.add(rows.size());
+        }
+    }
+
+    //한 묶음에 같은 member_id 가 두 번 있으면 둘 다 update 0 건이 되어 insert 가 겹치고, 다시 써도 똑같이 실패한다. 뒤의 행만 남긴다
+    private List<MemberCsvParser.Row> lastRowPerMember(List<MemberCsvParser.Row> batch) {
+        Map<Long, MemberCsvParser.Row> rows = new LinkedHashMap<>(batch.size() * 2);
+        for (MemberCsvParser.Row row : batch) {
+            rows.put(row.memberId, row);
+        }
+        return rows.size() == batch.size() ? batch : new ArrayList<>(rows.values());
+    }
+
+    private void writeBatch(List<MemberCsvParser.Row> batch, TeamIdCache teamIds) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(row -> ids.add(row.memberId));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchTransaction.executeWithoutResult(status -> {
+                    TeamIdCache.Batch teams = teamIds.begin();
+                    upsert(batch, teams);
+                    memberSearchViewWriter.refreshMembers(ids);
+                    memberOutboxWriter.appendSavedMembers(ids);
+                    AfterCommit.run(teams::commit);
+                    AfterCommit.run(() -> batch.forEach(row -> usernamePrefixIndex.put(row.memberId, row.username)));
+                });
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("member csv import batch conflicted with another batch, retrying. attempt = {}", attempt);
+            }
+        }
+    }
+
+    private void upsert(List<MemberCsvParser.Row> batch, TeamIdCache.Batch teams) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        for (MemberCsvParser.Row row : batch) {
+            updates.add(new Object[]{row.username, Member.normalizeUsername(row.username), row.age,
+                    row.memberRole != null ? row.memberRole.name() : null, teams.resolve(row.teamName), now, row.memberId});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] args = updates.get(i);
+                inserts.add(new Object[]{args[6], args[0], args[1], args[2], args[3], args[4], now, now});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+    }
+
+    private void syncAfterImport() {
+        batchTransaction.executeWithoutResult(status -> {
+            memberOutboxWriter.append(MemberChangeType.MEMBERS_BULK_UPDATED, null, null);
+            AfterCommit.run(memberBitmapIndex::markStale);
+            AfterCommit.run(memberDataVersion::invalidate);
+        });
+        teamStatsService.reconcile();
+    }
+
+    private static class Chunk {
+        private final ByteBuffer buffer;
+        //파일의 첫 묶음이면 헤더 줄이 있을 수 있다
+        private final boolean first;
+
+        Chunk(ByteBuffer buffer, boolean first) {
+            this.buffer = buffer;
+            this.first = first;
+        }
+    }
+
+    //적재 한 번의 큐, 카운터, 실패 상태
+    private class Run {
+        private final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<List<MemberCsvParser.Row>> batches = new ArrayBlockingQueue<>(queueCapacity);
+        private final TeamIdCache teamIds = new TeamIdCache(jdbcTemplate, teamRepository);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final StageMeter splitMeter = new StageMeter("split", "bytes");
+        private final StageMeter parseMeter = new StageMeter("parse", "rows");
+        private final StageMeter writeMeter = new StageMeter("write", "rows");
+
+        //실패하면 기록만 하고 끝낸다. 다른 단계는 큐를 기다리다 실패를 보고 멈춘다
+        void guard(Runnable stage) {
+            try {
+                stage.run();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        <T> void put(BlockingQueue<T> queue, T item) {
+            try {
+                while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("회원 CSV 적재가 중단되었습니다.", e);
+            }
+        }
+
+        <T> T take(BlockingQueue<T> queue) {
+            try {
+                T item;
+                while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    checkFailure();
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("회원 CSV 적재가 중단되었습니다.", e);
+            }
+        }
+
+        void checkFailure() {
+            if (failure.get() != null) {
+                throw new IllegalStateException("회원 CSV 적재의 다른 단계가 실패했습니다.", failure.get());
+            }
+        }
+
+        void reject(int count, Chunk chunk) {
+            long before = rejected.sum();
+            rejected.add(count);
+            if (before < MAX_LOGGED_REJECTS) {
+                log.warn("member csv import rejected {} malformed line(s) in a chunk of {} bytes", count, chunk.buffer.limit());
+            }
+        }
+    }
+}
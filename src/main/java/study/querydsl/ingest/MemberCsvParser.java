@@ -0,0 +1,169 @@
+package study.querydsl.ingest;
+
+import study.querydsl.domain.MemberRole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * member_id,username,age,member_role,team_name 형식의 CSV 한 묶음을 버퍼에서 바로 읽는다.
+ * 숫자는 String 을 만들지 않고 바이트에서 계산한다. 따옴표 이스케이프는 지원하지 않는다.
+ * member_role, team_name 은 비워 둘 수 있다. member_id 가 없는 줄은 다시 적재할 때 같은 회원을 찾을 수 없으므로 형식 오류로 센다.
+ * 스레드마다 하나씩 쓴다.
+ */
+class MemberCsvParser {
+
+    static final String HEADER = "member_id";
+    private static final int COLUMNS = 5;
+
+    private final int[] starts = new int[COLUMNS];
+    private final int[] ends = new int[COLUMNS];
+    private byte[] scratch = new byte[256];
+
+    //형식이 틀린 줄 수를 돌려준다. skipHeader 면 첫 줄이 헤더일 때 건너뛴다
+    int parse(ByteBuffer chunk, boolean skipHeader, Consumer<Row> rows) {
+        int rejected = 0;
+        boolean firstLine = skipHeader;
+        int position = chunk.position();
+        int limit = chunk.limit();
+
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            if (lineEnd > position && chunk.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if (lineEnd > position) {
+                if (firstLine && startsWith(chunk, position, lineEnd, HEADER)) {
+                    firstLine = false;
+                    position = next;
+                    continue;
+                }
+                firstLine = false;
+                Row row = parseLine(chunk, position, lineEnd);
+                if (row == null) {
+                    rejected++;
+                } else {
+                    rows.accept(row);
+                }
+            }
+            position = next;
+        }
+        return rejected;
+    }
+
+    private Row parseLine(ByteBuffer chunk, int from, int to) {
+        int column = 0;
+        starts[0] = from;
+        for (int i = from; i < to; i++) {
+            if (chunk.get(i) == ',') {
+                if (column == COLUMNS - 1) {
+                    return null;
+                }
+                ends[column] = i;
+                starts[++column] = i + 1;
+            }
+        }
+        ends[column] = to;
+        if (column < 2) {
+            return null;
+        }
+        for (int c = column + 1; c < COLUMNS; c++) {
+            starts[c] = to;
+            ends[c] = to;
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            trim(chunk, c);
+        }
+
+        long memberId = parseDigits(chunk, starts[0], ends[0], 18);
+        long age = parseDigits(chunk, starts[2], ends[2], 9);
+        String username = text(chunk, 1);
+        if (memberId == -1 || age == -1 || username == null) {
+            return null;
+        }
+
+        MemberRole memberRole = null;
+        String role = text(chunk, 3);
+        if (role != null) {
+            try {
+                memberRole = MemberRole.valueOf(role);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return new Row(memberId, username, (int) age, memberRole, text(chunk, 4));
+    }
+
+    //0 이상의 정수, 숫자가 아니거나 너무 길면 -1
+    private long parseDigits(ByteBuffer chunk, int from, int to, int maxDigits) {
+        if (from == to || to - from > maxDigits) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = chunk.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private String text(ByteBuffer chunk, int column) {
+        int length = ends[column] - starts[column];
+        if (length == 0) {
+            return null;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = chunk.get(starts[column] + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void trim(ByteBuffer chunk, int column) {
+        while (starts[column] < ends[column] && chunk.get(starts[column]) == ' ') {
+            starts[column]++;
+        }
+        while (ends[column] > starts[column] && chunk.get(ends[column] - 1) == ' ') {
+            ends[column]--;
+        }
+    }
+
+    private boolean startsWith(ByteBuffer chunk, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chunk.get(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Row {
+        final long memberId;
+        final String username;
+        final int age;
+        final MemberRole memberRole;
+        final String teamName;
+
+        Row(long memberId, String username, int age, MemberRole memberRole, String teamName) {
+            this.memberId = memberId;
+            this.username = username;
+            this.age = age;
+            this.memberRole = memberRole;
+            this.teamName = teamName;
+        }
+    }
+}
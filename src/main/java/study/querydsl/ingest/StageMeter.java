@@ -0,0 +1,40 @@
+package study.querydsl.ingest;
+
+import study.querydsl.dto.MemberImportResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 파이프라인 한 단계의 처리량. 여러 스레드가 record 하고, 처음 시작부터 마지막 끝까지를 그 단계의 경과 시간으로 본다.
+ */
+class StageMeter {
+
+    private final String stage;
+    private final String unit;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+
+    StageMeter(String stage, String unit) {
+        this.stage = stage;
+        this.unit = unit;
+    }
+
+    void record(long startNanos, long endNanos, long count) {
+        items.add(count);
+        busyNanos.add(endNanos - startNanos);
+        firstStart.accumulateAndGet(startNanos, Math::min);
+        lastEnd.accumulateAndGet(endNanos, Math::max);
+    }
+
+    MemberImportResult.Stage toStage() {
+        long elapsedNanos = Math.max(lastEnd.get() - firstStart.get(), 0);
+        return new MemberImportResult.Stage(stage, unit, items.sum(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                TimeUnit.NANOSECONDS.toMillis(busyNanos.sum()),
+                elapsedNanos == 0 ? 0 : items.sum() * 1_000_000_000.0 / elapsedNanos);
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.ingest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.domain.Team;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 적재 한 번 동안 팀명 -> team_id 를 기억한다. 처음 보는 팀명은 묶음 트랜잭션 안에서 찾고, 없으면 JPA 로 팀을 만든다.
+ * 묶음이 커밋된 뒤에만 기억하므로 롤백된 묶음이 만든 팀 id 를 다른 묶음이 쓰지 않는다.
+ * team.name 은 unique 라서 두 묶음이 같은 팀을 동시에 만들면 늦은 쪽이 실패하고, 다시 쓰면 먼저 커밋된 팀을 찾는다.
+ */
+class TeamIdCache {
+
+    private static final String FIND_SQL = "select team_id from team where name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TeamRepository teamRepository;
+    private final Map<String, Long> teamIds = new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TeamIdCache(JdbcTemplate jdbcTemplate, TeamRepository teamRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.teamRepository = teamRepository;
+    }
+
+    //묶음 트랜잭션마다 하나씩 만들고, 커밋된 뒤 commit() 을 부른다
+    Batch begin() {
+        return new Batch();
+    }
+
+    long hits() {
+        return lookups.sum() - misses.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private Long findOrCreate(String teamName) {
+        List<Long> found = jdbcTemplate.queryForList(FIND_SQL, Long.class, teamName);
+        if (!found.isEmpty()) {
+            return found.get(0);
+        }
+        //엔티티 리스너가 outbox, 읽기 모델, 데이터 버전을 같은 트랜잭션에서 맞춘다
+        return teamRepository.saveAndFlush(new Team(teamName)).getId();
+    }
+
+    class Batch {
+        private final Map<String, Long> resolved = new HashMap<>();
+        private long batchLookups;
+
+        Long resolve(String teamName) {
+            if (teamName == null) {
+                return null;
+            }
+            batchLookups++;
+            Long teamId = teamIds.get(teamName);
+            if (teamId != null) {
+                return teamId;
+            }
+            return resolved.computeIfAbsent(teamName, TeamIdCache.this::findOrCreate);
+        }
+
+        //같은 팀을 다른 묶음이 먼저 기억했으면 그 묶음에서 센 것으로 본다
+        void commit() {
+            lookups.add(batchLookups);
+            resolved.forEach((teamName, teamId) -> {
+                if (teamIds.putIfAbsent(teamName, teamId) == null) {
+                    misses.increment();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.outbox;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 폴러가 한 번에 발행하는 변경 묶음. seq 순서로 담겨 있고 {@link MemberChangeSubscriber} 가 받는다.
+ * 같은 변경이 다시 올 수 있으므로(at-least-once) 구독자는 멱등해야 한다.
+ */
+@Getter
+public class MemberChangeBatchEvent {
+
+    private final List<MemberChangeEvent> events;
+
+    public MemberChangeBatchEvent(List<MemberChangeEvent> events) {
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    public long lastSeq() {
+        return events.get(events.size() - 1).getSeq();
+    }
+
+    //바뀐 회원이 속한 팀 id, 팀 자체가 바뀐 경우 포함
+    public Set<Long> teamIds() {
+        Set<Long> teamIds = new TreeSet<>();
+        for (MemberChangeEvent event : events) {
+            if (event.getTeamId() != null) {
+                teamIds.add(event.getTeamId());
+            }
+        }
+        return teamIds;
+    }
+
+    //범위를 특정할 수 없는 벌크 수정이 있으면 전체를 무효화해야 한다
+    public boolean hasBulkUpdate() {
+        return events.stream().anyMatch(event -> event.getChangeType().isBulk());
+    }
+}
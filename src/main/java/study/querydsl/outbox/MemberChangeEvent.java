@@ -0,0 +1,31 @@
+package study.querydsl.outbox;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.domain.MemberChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * outbox 한 행. seq 는 커밋 순서, aggregateId 는 회원 또는 팀 id, 벌크 수정이면 null
+ */
+@Getter
+@ToString
+public class MemberChangeEvent {
+
+    private final long outboxId;
+    private final long seq;
+    private final MemberChangeType changeType;
+    private final Long aggregateId;
+    private final Long teamId;
+    private final LocalDateTime occurredAt;
+
+    public MemberChangeEvent(long outboxId, long seq, MemberChangeType changeType, Long aggregateId, Long teamId, LocalDateTime occurredAt) {
+        this.outboxId = outboxId;
+        this.seq = seq;
+        this.changeType = changeType;
+        this.aggregateId = aggregateId;
+        this.teamId = teamId;
+        this.occurredAt = occurredAt;
+    }
+}
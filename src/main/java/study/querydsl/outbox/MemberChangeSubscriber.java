@@ -0,0 +1,13 @@
+package study.querydsl.outbox;
+
+/**
+ * outbox 변경 묶음을 받는 구독자. 빈으로 등록하면 {@link MemberOutboxPoller} 가 구독자마다 따로 offset 을 두고 넘겨준다.
+ * 한 구독자가 예외를 던져도 다른 구독자는 계속 받는다. 실패한 묶음은 다시 오므로 멱등해야 한다.
+ */
+public interface MemberChangeSubscriber {
+
+    //offset 과 dead letter 를 구분하는 이름. 바꾸면 처음 보는 구독자로 취급한다
+    String getName();
+
+    void onChanges(MemberChangeBatchEvent batch);
+}
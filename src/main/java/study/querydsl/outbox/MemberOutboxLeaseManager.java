@@ -0,0 +1,43 @@
+package study.querydsl.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * consumer 별 발행 임대를 조건부 update 로 잡는다. 비어 있거나, 만료되었거나, 이미 내 것일 때만 잡힌다.
+ * 발행 트랜잭션과 따로 바로 커밋해야 다른 인스턴스가 임대를 보고 물러난다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberOutboxLeaseManager {
+
+    private static final String RENEW_SQL =
+            "update member_outbox_lease set owner = ?, lease_until = ?" +
+            " where consumer_id = ? and (owner = ? or lease_until < ?)";
+    private static final String INSERT_SQL =
+            "insert into member_outbox_lease (consumer_id, owner, lease_until) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String consumerId, String owner, long leaseMillis) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp until = Timestamp.valueOf(now.plusNanos(leaseMillis * 1_000_000));
+        if (jdbcTemplate.update(RENEW_SQL, owner, until, consumerId, owner, Timestamp.valueOf(now)) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, consumerId, owner, until) > 0;
+        } catch (DuplicateKeyException e) {
+            //다른 인스턴스가 임대 중이다
+            return false;
+        }
+    }
+}
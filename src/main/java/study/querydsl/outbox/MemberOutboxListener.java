@@ -0,0 +1,44 @@
+package study.querydsl.outbox;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberChangeType;
+import study.querydsl.domain.Team;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+public class MemberOutboxListener {
+
+    private final MemberOutboxWriter memberOutboxWriter;
+
+    //flush 시점에 같은 트랜잭션으로 outbox 행을 남긴다
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            memberOutboxWriter.append(MemberChangeType.MEMBER_SAVED, member.getId(), teamId(member));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            memberOutboxWriter.append(MemberChangeType.TEAM_SAVED, team.getId(), team.getId());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            memberOutboxWriter.append(MemberChangeType.MEMBER_REMOVED, member.getId(), teamId(member));
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            memberOutboxWriter.append(MemberChangeType.TEAM_REMOVED, team.getId(), team.getId());
+        }
+    }
+
+    private Long teamId(Member member) {
+        return member.getTeam() != null ? member.getTeam().getId() : null;
+    }
+}
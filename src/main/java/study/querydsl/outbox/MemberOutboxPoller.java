@@ -0,0 +1,210 @@
+package study.querydsl.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.MemberChangeType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 커밋된 outbox 행에 seq 를 매기고, 구독자마다 자기 offset 뒤의 행을 seq 순으로 묶어 {@link MemberChangeSubscriber} 에 넘긴다.
+ * offset 은 노드(consumer-id)별로 두므로 모든 노드가 모든 변경을 받는다. 행은 지우지 않고 보관 기간이 지나면 지운다.
+ * 같은 consumer 를 두 인스턴스가 동시에 발행하지 않도록 임대를 잡은 쪽만 발행한다.
+ * 구독자가 실패하면 그 구독자만 offset 을 멈추고 다음 주기에 다시 받는다. max-attempts 번 실패하면 그 구간을 dead letter 로 남기고 넘어간다.
+ * seq 매기기와 구독자별 offset 갱신은 각각 짧은 트랜잭션으로 바로 커밋하고, 구독자는 DB 트랜잭션 밖에서 부른다.
+ * 느린 구독자가 seq 행 잠금을 잡고 있지 않고, 구독자 안의 트랜잭션이 롤백되어도 다른 구독자의 offset 은 커밋된다.
+ */
+@Slf4j
+@Component
+public class MemberOutboxPoller {
+
+    private static final String SELECT_SQL =
+            "select outbox_id, seq, change_type, aggregate_id, team_id, occurred_at from member_outbox" +
+            " where seq > ? order by seq limit ?";
+
+    private static final String OFFSET_SQL =
+            "select last_seq, attempts from member_outbox_offset where consumer_id = ? and subscriber = ?";
+    private static final String INSERT_OFFSET_SQL =
+            "insert into member_outbox_offset (consumer_id, subscriber, last_seq, attempts, updated_at) values (?, ?, ?, 0, ?)";
+    private static final String ADVANCE_OFFSET_SQL =
+            "update member_outbox_offset set last_seq = ?, attempts = 0, last_error = null, updated_at = ?" +
+            " where consumer_id = ? and subscriber = ?";
+    private static final String FAIL_OFFSET_SQL =
+            "update member_outbox_offset set attempts = ?, last_error = ?, updated_at = ? where consumer_id = ? and subscriber = ?";
+    private static final String DEAD_LETTER_SQL =
+            "insert into member_outbox_dead_letter (consumer_id, subscriber, from_seq, to_seq, attempts, last_error, failed_at)" +
+            " values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PURGE_OUTBOX_SQL = "delete from member_outbox where seq is not null and occurred_at < ?";
+    //내려간 노드의 offset, 임대
+    private static final String PURGE_OFFSET_SQL = "delete from member_outbox_offset where updated_at < ?";
+    private static final String PURGE_LEASE_SQL = "delete from member_outbox_lease where lease_until < ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final RowMapper<MemberChangeEvent> EVENT_MAPPER = (rs, rowNum) -> new MemberChangeEvent(
+            rs.getLong("outbox_id"),
+            rs.getLong("seq"),
+            MemberChangeType.valueOf(rs.getString("change_type")),
+            rs.getObject("aggregate_id", Long.class),
+            rs.getObject("team_id", Long.class),
+            rs.getTimestamp("occurred_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberOutboxSequencer memberOutboxSequencer;
+    private final MemberOutboxLeaseManager memberOutboxLeaseManager;
+    private final List<MemberChangeSubscriber> subscribers;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate noTransaction;
+
+    private final String consumerId;
+    //같은 consumer-id 로 뜬 다른 인스턴스와 임대를 구분한다
+    private final String owner = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    private final long retentionHours;
+
+    public MemberOutboxPoller(JdbcTemplate jdbcTemplate,
+                              MemberOutboxSequencer memberOutboxSequencer,
+                              MemberOutboxLeaseManager memberOutboxLeaseManager,
+                              List<MemberChangeSubscriber> subscribers,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${member.outbox.consumer-id:${random.uuid}}") String consumerId,
+                              @Value("${member.outbox.batch-size:500}") int batchSize,
+                              @Value("${member.outbox.lease-ms:30000}") long leaseMillis,
+                              @Value("${member.outbox.max-attempts:5}") int maxAttempts,
+                              @Value("${member.outbox.retention-hours:168}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberOutboxSequencer = memberOutboxSequencer;
+        this.memberOutboxLeaseManager = memberOutboxLeaseManager;
+        this.subscribers = subscribers;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.noTransaction = new TransactionTemplate(transactionManager);
+        this.noTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.consumerId = consumerId;
+        this.batchSize = batchSize;
+        this.leaseMillis = leaseMillis;
+        this.maxAttempts = maxAttempts;
+        this.retentionHours = retentionHours;
+    }
+
+    //구독자들에게 넘긴 변경 수의 합. 임대를 못 잡았으면 0
+    @Scheduled(fixedDelayString = "${member.outbox.poll-interval-ms:1000}",
+            initialDelayString = "${member.outbox.poll-interval-ms:1000}")
+    public int publishPending() {
+        if (!memberOutboxLeaseManager.tryAcquire(consumerId, owner, leaseMillis)) {
+            return 0;
+        }
+
+        //처음 보는 구독자는 지금까지 매긴 seq 다음부터 받는다. 기동 시 로컬 상태는 원본에서 다시 만든다
+        long startSeq = memberOutboxSequencer.lastSeq();
+        //seq 행 잠금은 여기서 커밋하며 풀린다. 새 seq 는 구독자 처리를 기다리지 않고 변경 피드와 데이터 버전에 보인다
+        writeTransaction.execute(status -> memberOutboxSequencer.assignSequence(batchSize));
+
+        int published = 0;
+        for (MemberChangeSubscriber subscriber : subscribers) {
+            published += deliver(subscriber, startSeq);
+        }
+        return published;
+    }
+
+    //보관 기간이 지난 발행 행을 지운다. 그보다 오래 밀린 노드는 로컬 상태를 재구축해야 한다
+    @Transactional
+    @Scheduled(fixedDelayString = "${member.outbox.purge-interval-ms:3600000}",
+            initialDelayString = "${member.outbox.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        int purged = jdbcTemplate.update(PURGE_OUTBOX_SQL, before);
+        jdbcTemplate.update(PURGE_OFFSET_SQL, before);
+        jdbcTemplate.update(PURGE_LEASE_SQL, before);
+        log.info("member outbox purged. rows = {}", purged);
+        return purged;
+    }
+
+    public String getConsumerId() {
+        return consumerId;
+    }
+
+    private int deliver(MemberChangeSubscriber subscriber, long startSeq) {
+        String name = subscriber.getName();
+        Offset offset = writeTransaction.execute(status -> offset(name, startSeq));
+        List<MemberChangeEvent> events = jdbcTemplate.query(SELECT_SQL, EVENT_MAPPER, offset.lastSeq, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        MemberChangeBatchEvent batch = new MemberChangeBatchEvent(events);
+        RuntimeException failure = notify(subscriber, batch);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (failure == null) {
+            writeTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.update(ADVANCE_OFFSET_SQL, batch.lastSeq(), now, consumerId, name));
+            return events.size();
+        }
+
+        int attempts = offset.attempts + 1;
+        String error = truncate(failure.toString());
+        if (attempts < maxAttempts) {
+            writeTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.update(FAIL_OFFSET_SQL, attempts, error, now, consumerId, name));
+            log.warn("member outbox subscriber failed. subscriber = {}, seq = {}..{}, attempts = {}",
+                    name, events.get(0).getSeq(), batch.lastSeq(), attempts, failure);
+            return 0;
+        }
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(DEAD_LETTER_SQL, consumerId, name, events.get(0).getSeq(), batch.lastSeq(), attempts, error, now);
+            jdbcTemplate.update(ADVANCE_OFFSET_SQL, batch.lastSeq(), now, consumerId, name);
+        });
+        log.error("member outbox subscriber gave up. subscriber = {}, seq = {}..{} moved to dead letter",
+                name, events.get(0).getSeq(), batch.lastSeq(), failure);
+        return events.size();
+    }
+
+    //호출자에게 트랜잭션이 있어도 멈춰 두고 부른다. 구독자가 연 트랜잭션의 롤백이 poller 의 쓰기를 되돌리지 않는다
+    private RuntimeException notify(MemberChangeSubscriber subscriber, MemberChangeBatchEvent batch) {
+        try {
+            noTransaction.executeWithoutResult(status -> subscriber.onChanges(batch));
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private Offset offset(String subscriber, long startSeq) {
+        List<Offset> offsets = jdbcTemplate.query(OFFSET_SQL,
+                (rs, rowNum) -> new Offset(rs.getLong("last_seq"), rs.getInt("attempts")), consumerId, subscriber);
+        if (!offsets.isEmpty()) {
+            return offsets.get(0);
+        }
+        //임대를 잡고 있으므로 같은 consumer 의 다른 인스턴스와 동시에 넣지 않는다
+        jdbcTemplate.update(INSERT_OFFSET_SQL, consumerId, subscriber, startSeq, Timestamp.valueOf(LocalDateTime.now()));
+        return new Offset(startSeq, 0);
+    }
+
+    private String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static final class Offset {
+        private final long lastSeq;
+        private final int attempts;
+
+        private Offset(long lastSeq, int attempts) {
+            this.lastSeq = lastSeq;
+            this.attempts = attempts;
+        }
+    }
+}
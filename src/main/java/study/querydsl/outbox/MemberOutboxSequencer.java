@@ -0,0 +1,79 @@
+package study.querydsl.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 커밋된 outbox 행에 seq 를 매긴다. outbox_id 는 insert(flush) 순서라 늦게 커밋된 트랜잭션의 작은 id 가 나중에 보일 수 있다.
+ * seq 는 행이 커밋되어 보인 다음에 매기므로, seq 순으로 읽는 쪽은 지나간 seq 뒤에 새 행이 끼어드는 것을 보지 않는다.
+ * member_outbox_sequence 행을 잠가 여러 노드가 동시에 매기지 않게 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberOutboxSequencer {
+
+    private static final String NAME = "member";
+
+    private static final String LOCK_SQL = "select last_seq from member_outbox_sequence where name = ? for update";
+    private static final String LAST_SEQ_SQL = "select last_seq from member_outbox_sequence where name = ?";
+    private static final String INIT_SQL = "insert into member_outbox_sequence (name, last_seq) values (?, 0)";
+    private static final String PENDING_SQL = "select outbox_id from member_outbox where seq is null order by outbox_id limit ?";
+    private static final String ASSIGN_SQL = "update member_outbox set seq = ? where outbox_id = ?";
+    private static final String ADVANCE_SQL = "update member_outbox_sequence set last_seq = ? where name = ?";
+    //한 문장으로 읽어야 seq 를 매기는 커밋 전후 값이 섞이지 않는다
+    private static final String COMMITTED_COUNT_SQL =
+            "select coalesce((select last_seq from member_outbox_sequence where name = ?), 0)" +
+            " + (select count(*) from member_outbox where seq is null)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //매긴 행 수
+    @Transactional
+    public int assignSequence(int limit) {
+        long lastSeq = lockLastSeq();
+        List<Long> outboxIds = jdbcTemplate.queryForList(PENDING_SQL, Long.class, limit);
+        if (outboxIds.isEmpty()) {
+            return 0;
+        }
+
+        long seq = lastSeq;
+        List<Object[]> args = new ArrayList<>(outboxIds.size());
+        for (Long outboxId : outboxIds) {
+            args.add(new Object[]{++seq, outboxId});
+        }
+        jdbcTemplate.batchUpdate(ASSIGN_SQL, args);
+        jdbcTemplate.update(ADVANCE_SQL, seq, NAME);
+        return outboxIds.size();
+    }
+
+    //잠그지 않고 읽는다. 커밋된 마지막 seq
+    public long lastSeq() {
+        List<Long> lastSeq = jdbcTemplate.queryForList(LAST_SEQ_SQL, Long.class, NAME);
+        return lastSeq.isEmpty() ? 0 : lastSeq.get(0);
+    }
+
+    //지금까지 커밋된 outbox 행 수. 매긴 seq 와 아직 매기지 않은 행의 합이라 seq 를 매겨도 바뀌지 않고, 지워도 줄지 않는다
+    public long committedCount() {
+        Long count = jdbcTemplate.queryForObject(COMMITTED_COUNT_SQL, Long.class, NAME);
+        return count != null ? count : 0;
+    }
+
+    private long lockLastSeq() {
+        List<Long> lastSeq = jdbcTemplate.queryForList(LOCK_SQL, Long.class, NAME);
+        if (!lastSeq.isEmpty()) {
+            return lastSeq.get(0);
+        }
+        try {
+            jdbcTemplate.update(INIT_SQL, NAME);
+        } catch (DuplicateKeyException e) {
+            //다른 노드가 먼저 만들었다
+        }
+        return jdbcTemplate.queryForObject(LOCK_SQL, Long.class, NAME);
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.domain.MemberChangeType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * outbox 행을 JDBC 로 넣는다. JpaTransactionManager 가 묶어 둔 같은 커넥션을 쓰므로
+ * 회원/팀 변경과 함께 커밋되거나 함께 롤백된다.
+ * 엔티티 콜백 안에서는 EntityManager 를 쓸 수 없어 JPA 로 persist 하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberOutboxWriter {
+
+    private static final String INSERT_SQL =
+            "insert into member_outbox (change_type, aggregate_id, team_id, occurred_at) values (?, ?, ?, ?)";
+    //벌크 변경된 회원의 지금 소속을 원본에서 읽어 회원마다 한 행씩 남긴다
+    private static final String INSERT_MEMBERS_SQL =
+            "insert into member_outbox (change_type, aggregate_id, team_id, occurred_at)" +
+            " select ?, m.member_id, m.team_id, ? from member m";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(MemberChangeType changeType, Long aggregateId, Long teamId) {
+        jdbcTemplate.update(INSERT_SQL, changeType.name(), aggregateId, teamId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    //엔티티 리스너를 거치지 않는 벌크 update/적재에서 바뀐 회원마다 MEMBER_SAVED 를 남긴다. 같은 트랜잭션에서 호출한다
+    public void appendSavedMembers(List<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(memberIds.size() + 2);
+        args.add(MemberChangeType.MEMBER_SAVED.name());
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(memberIds);
+        String in = String.join(", ", Collections.nCopies(memberIds.size(), "?"));
+        jdbcTemplate.update(INSERT_MEMBERS_SQL + " where m.member_id in (" + in + ")", args.toArray());
+    }
+
+    //벌크 delete 로 지운 회원마다 MEMBER_REMOVED 를 남긴다. 행이 이미 없으므로 팀은 비워 둔다
+    public void appendRemovedMembers(List<Long> memberIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            args.add(new Object[]{MemberChangeType.MEMBER_REMOVED.name(), memberId, null, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+}
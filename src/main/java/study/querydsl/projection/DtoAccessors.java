@@ -0,0 +1,142 @@
+package study.querydsl.projection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * DTO 클래스별로 기본 생성자와 setter 를 LambdaMetafactory 로 한 번만 만들어 캐시한다.
+ * 생성된 람다는 일반 메소드 호출처럼 JIT 인라이닝이 되므로 행마다 리플렉션을 거치지 않는다.
+ * setter 가 없는 필드 주입은 MethodHandle 로 처리한다.
+ */
+final class DtoAccessors {
+
+    private static final ClassValue<DtoAccessors> CACHE = new ClassValue<>() {
+        @Override
+        protected DtoAccessors computeValue(Class<?> type) {
+            return new DtoAccessors(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final MethodHandles.Lookup lookup;
+    private final Supplier<Object> constructor;
+    private final Map<String, BiConsumer<Object, Object>> propertySetters = new ConcurrentHashMap<>();
+    private final Map<String, BiConsumer<Object, Object>> fieldSetters = new ConcurrentHashMap<>();
+
+    private DtoAccessors(Class<?> type) {
+        this.type = type;
+        try {
+            this.lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            this.constructor = createConstructor();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + " 에 접근 가능한 기본 생성자가 없습니다.", e);
+        }
+    }
+
+    static DtoAccessors of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    Object newInstance() {
+        return constructor.get();
+    }
+
+    BiConsumer<Object, Object> propertySetter(String property) {
+        return propertySetters.computeIfAbsent(property, this::createPropertySetter);
+    }
+
+    BiConsumer<Object, Object> fieldSetter(String fieldName) {
+        return fieldSetters.computeIfAbsent(fieldName, this::createFieldSetter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Supplier<Object> createConstructor() throws Throwable {
+        MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                handle,
+                MethodType.methodType(type));
+        return (Supplier<Object>) site.getTarget().invoke();
+    }
+
+    @SuppressWarnings("unchecked")
+    private BiConsumer<Object, Object> createPropertySetter(String property) {
+        Method setter = findSetter(property);
+        try {
+            MethodHandle handle = lookup.unreflect(setter);
+            Class<?> valueType = wrap(setter.getParameterTypes()[0]);
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, type, valueType));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + "." + setter.getName() + " 접근자를 만들 수 없습니다.", e);
+        }
+    }
+
+    private BiConsumer<Object, Object> createFieldSetter(String fieldName) {
+        Field field = findField(fieldName);
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + "." + fieldName + " 필드에 접근할 수 없습니다.", e);
+        }
+        return (target, value) -> {
+            try {
+                handle.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private Method findSetter(String property) {
+        String setterName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + setterName + " 가 없습니다.");
+    }
+
+    private Field findField(String fieldName) {
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(fieldName);
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    return field;
+                }
+            } catch (NoSuchFieldException ignored) {
+                //상위 클래스에서 다시 찾는다
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + fieldName + " 필드가 없습니다.");
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Projections.bean / Projections.fields 와 같은 규칙(경로 이름 또는 as 별칭)으로 DTO 를 채우되,
+ * 행마다 리플렉션을 호출하지 않고 {@link DtoAccessors} 가 캐시한 접근자를 사용한다.
+ * null 값은 Projections.bean 과 같이 건너뛴다.
+ */
+public final class FastProjections {
+
+    private FastProjections() {
+    }
+
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        DtoAccessors accessors = DtoAccessors.of(type);
+        BiConsumer<Object, Object>[] setters = setters(exprs, accessors, false);
+        return new AccessorProjection<>(type, accessors, setters, exprs);
+    }
+
+    public static <T> FactoryExpression<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        DtoAccessors accessors = DtoAccessors.of(type);
+        BiConsumer<Object, Object>[] setters = setters(exprs, accessors, true);
+        return new AccessorProjection<>(type, accessors, setters, exprs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object>[] setters(Expression<?>[] exprs, DtoAccessors accessors, boolean fieldAccess) {
+        BiConsumer<Object, Object>[] setters = new BiConsumer[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            String name = propertyName(exprs[i]);
+            setters[i] = fieldAccess ? accessors.fieldSetter(name) : accessors.propertySetter(name);
+        }
+        return setters;
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) expr).getArg(1);
+            if (alias instanceof Path) {
+                return ((Path<?>) alias).getMetadata().getName();
+            }
+        }
+        throw new IllegalArgumentException("경로나 as 별칭이 있는 식만 매핑할 수 있습니다. expr = " + expr);
+    }
+
+    private static final class AccessorProjection<T> extends FactoryExpressionBase<T> {
+
+        private final DtoAccessors accessors;
+        private final BiConsumer<Object, Object>[] setters;
+        private final List<Expression<?>> args;
+
+        private AccessorProjection(Class<? extends T> type, DtoAccessors accessors,
+                                   BiConsumer<Object, Object>[] setters, Expression<?>[] exprs) {
+            super(type);
+            this.accessors = accessors;
+            this.setters = setters;
+            this.args = Collections.unmodifiableList(Arrays.asList(exprs.clone()));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... values) {
+            Object result = accessors.newInstance();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    setters[i].accept(result, values[i]);
+                }
+            }
+            return (T) result;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+    }
+}
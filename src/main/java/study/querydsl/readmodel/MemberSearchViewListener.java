@@ -0,0 +1,38 @@
+package study.querydsl.readmodel;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+public class MemberSearchViewListener {
+
+    private final MemberSearchViewWriter memberSearchViewWriter;
+
+    //flush 시점에 같은 트랜잭션으로 읽기 모델을 맞춘다
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+            memberSearchViewWriter.upsertMember(member.getId(), member.getUsername(), member.getAge(), member.getMemberRole(), teamId);
+        } else if (entity instanceof Team) {
+            Team team = (Team) entity;
+            memberSearchViewWriter.renameTeam(team.getId(), team.getName());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Member) {
+            memberSearchViewWriter.deleteMember(((Member) entity).getId());
+        } else if (entity instanceof Team) {
+            memberSearchViewWriter.detachTeam(((Team) entity).getId());
+        }
+    }
+}
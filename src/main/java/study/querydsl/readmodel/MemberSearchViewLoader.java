@@ -0,0 +1,31 @@
+package study.querydsl.readmodel;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberSearchViewLoader {
+
+    private final MemberSearchViewWriter memberSearchViewWriter;
+
+    //리스너 도입 전에 쌓인 행이나 JDBC 로 넣은 행을 기동 시 채운다
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        int rows = memberSearchViewWriter.reconcile();
+        log.info("member search view reconciled on startup. fixed rows = {}", rows);
+    }
+
+    //리스너를 거치지 않은 변경(직접 고친 SQL, 놓친 갱신)을 주기적으로 원본에 맞춘다
+    @Scheduled(fixedDelayString = "${member.search-view.reconcile-interval-ms:600000}",
+            initialDelayString = "${member.search-view.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        int rows = memberSearchViewWriter.reconcile();
+        log.info("member search view reconciled. fixed rows = {}", rows);
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.readmodel;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * member_search_view 를 JDBC 로 갱신한다. 원본 변경과 같은 커넥션, 같은 트랜잭션을 쓴다.
+ * 팀명을 복사하기 전에 team 행을 잠근다. 팀명 변경은 team 행을 먼저 고치므로, 둘 중 늦은 쪽이 먼저 커밋된 값을 보고 쓴다.
+ * DB 전용 문법(merge ... key) 없이 표준 SQL 만 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchViewWriter {
+
+    private static final String COLUMNS = "member_id, username, normalized_username, age, member_role, team_id, team_name";
+
+    private static final String LOCK_TEAM_SQL = "select name from team where team_id = ? for update";
+    private static final String MEMBER_TEAMS_SQL = "select distinct team_id from member where team_id is not null and member_id in (";
+    private static final String LOCK_TEAMS_SQL = "select team_id from team where team_id in (";
+
+    private static final String UPDATE_MEMBER_SQL =
+            "update member_search_view set username = ?, normalized_username = ?, age = ?, member_role = ?, team_id = ?, team_name = ?" +
+            " where member_id = ?";
+    private static final String INSERT_MEMBER_SQL =
+            "insert into member_search_view (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_MEMBER_SQL = "delete from member_search_view where member_id = ?";
+    //팀 집계 컬럼만 바뀐 경우는 건드리지 않도록 이름이 다를 때만 갱신한다
+    private static final String RENAME_TEAM_SQL =
+            "update member_search_view set team_name = ? where team_id = ? and (team_name is null or team_name <> ?)";
+    private static final String DETACH_TEAM_SQL =
+            "update member_search_view set team_id = null, team_name = null where team_id = ?";
+    private static final String INSERT_FROM_SOURCE_SQL =
+            "insert into member_search_view (" + COLUMNS + ")" +
+            " select m.member_id, m.username, m.normalized_username, m.age, m.member_role, t.team_id, t.name" +
+            " from member m left join team t on m.team_id = t.team_id";
+    private static final String DELETE_MEMBERS_SQL = "delete from member_search_view where member_id in (";
+
+    //원본과 다른 행만 고친다. 리스너로 이미 맞춰진 행은 건드리지 않는다
+    private static final String RECONCILE_SQL =
+            "update member_search_view v set" +
+            " username = (select m.username from member m where m.member_id = v.member_id)," +
+            " normalized_username = (select m.normalized_username from member m where m.member_id = v.member_id)," +
+            " age = (select m.age from member m where m.member_id = v.member_id)," +
+            " member_role = (select m.member_role from member m where m.member_id = v.member_id)," +
+            " team_id = (select t.team_id from member m join team t on m.team_id = t.team_id where m.member_id = v.member_id)," +
+            " team_name = (select t.name from member m join team t on m.team_id = t.team_id where m.member_id = v.member_id)" +
+            " where exists (select 1 from member m left join team t on m.team_id = t.team_id where m.member_id = v.member_id" +
+            " and (m.username is distinct from v.username or m.normalized_username is distinct from v.normalized_username" +
+            " or m.age <> v.age or m.member_role is distinct from v.member_role" +
+            " or t.team_id is distinct from v.team_id or t.name is distinct from v.team_name))";
+    private static final String INSERT_MISSING_SQL = INSERT_FROM_SOURCE_SQL +
+            " where not exists (select 1 from member_search_view v where v.member_id = m.member_id)";
+    private static final String DELETE_ORPHANS_SQL =
+            "delete from member_search_view v where not exists (select 1 from member m where m.member_id = v.member_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //회원 행은 이 트랜잭션이 방금 넣었거나 고쳐서 잡고 있으므로 같은 회원을 동시에 쓰는 쪽이 없다
+    public void upsertMember(Long memberId, String username, int age, MemberRole memberRole, Long teamId) {
+        String teamName = teamId != null ? lockTeam(teamId) : null;
+        String role = memberRole != null ? memberRole.name() : null;
+        int updated = jdbcTemplate.update(UPDATE_MEMBER_SQL, username, Member.normalizeUsername(username), age, role,
+                teamId, teamName, memberId);
+        if (updated == 0) {
+            jdbcTemplate.update(INSERT_MEMBER_SQL, memberId, username, Member.normalizeUsername(username), age, role,
+                    teamId, teamName);
+        }
+    }
+
+    public void deleteMember(Long memberId) {
+        jdbcTemplate.update(DELETE_MEMBER_SQL, memberId);
+    }
+
+    public void renameTeam(Long teamId, String teamName) {
+        jdbcTemplate.update(RENAME_TEAM_SQL, teamName, teamId, teamName);
+    }
+
+    public void detachTeam(Long teamId) {
+        jdbcTemplate.update(DETACH_TEAM_SQL, teamId);
+    }
+
+    //벌크 update/delete 로 바뀐 회원만 원본에서 다시 읽고, 원본에 없는 행은 지운다. 같은 트랜잭션에서 호출한다
+    public void refreshMembers(List<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        String in = in(memberIds.size());
+        Object[] args = memberIds.toArray();
+        lockTeams(jdbcTemplate.queryForList(MEMBER_TEAMS_SQL + in + ")", Long.class, args));
+        jdbcTemplate.update(DELETE_MEMBERS_SQL + in + ")", args);
+        jdbcTemplate.update(INSERT_FROM_SOURCE_SQL + " where m.member_id in (" + in + ")", args);
+    }
+
+    /**
+     * 원본과 다른 행을 고치고, 빠진 행을 넣고, 원본에 없는 행을 지운다. 고친 행 수를 돌려준다.
+     * 기동 시, 주기적으로, 또는 JDBC 로 원본을 직접 고친 뒤 호출한다.
+     */
+    @Transactional
+    public int reconcile() {
+        int fixed = jdbcTemplate.update(RECONCILE_SQL);
+        fixed += jdbcTemplate.update(INSERT_MISSING_SQL);
+        fixed += jdbcTemplate.update(DELETE_ORPHANS_SQL);
+        return fixed;
+    }
+
+    private String lockTeam(Long teamId) {
+        List<String> names = jdbcTemplate.queryForList(LOCK_TEAM_SQL, String.class, teamId);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    private void lockTeams(List<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.queryForList(LOCK_TEAMS_SQL + in(teamIds.size()) + ") for update", Long.class, teamIds.toArray());
+    }
+
+    private String in(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+}
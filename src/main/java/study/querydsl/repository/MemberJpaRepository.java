@@ -4,12 +4,15 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
  import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -25,6 +28,11 @@ public class MemberJpaRepository {
 
     private final JPAQueryFactory queryFactory;
     private final EntityManager em;
+    private final MemberSearchViewRepository memberSearchViewRepository;
+
+    //true 면 member join team 대신 member_search_view 를 읽는다
+    @Value("${member.search-view.enabled:false}")
+    private boolean searchViewEnabled;
 
     public Long save(Member member) {
         em.persist(member);
@@ -65,7 +73,7 @@ public class MemberJpaRepository {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
 
         if (StringUtils.hasText(memberSearchCond.getUsername())) {
-            booleanBuilder.and(member.username.eq(memberSearchCond.getUsername()));
+            booleanBuilder.and(usernameEp(memberSearchCond));
         }
 
         if (StringUtils.hasText(memberSearchCond.getTeamName())) {
@@ -80,6 +88,10 @@ public class MemberJpaRepository {
             booleanBuilder.and(member.age.loe(memberSearchCond.getAgeLoe()));
         }
 
+        if (memberSearchCond.getMemberRole() != null) {
+            booleanBuilder.and(member.memberRole.eq(memberSearchCond.getMemberRole()));
+        }
+
         return queryFactory.select(new QMemberTeamDto(
                                 member.id.as("memberId"),
                                 member.username,
@@ -94,6 +106,10 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        if (searchViewEnabled) {
+            return memberSearchViewRepository.searchByWhere(memberSearchCond);
+        }
+
         return queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -104,16 +120,29 @@ public class MemberJpaRepository {
                 .from(member)
                 .join(member.team, team)
                 .where(
-                        usernameEp(memberSearchCond.getUsername()),
+                        usernameEp(memberSearchCond),
                         teamNameEp(memberSearchCond.getTeamName()),
                         ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
                         )
                 .fetch();
     }
 
-    private BooleanExpression usernameEp(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
+    private BooleanExpression usernameEp(MemberSearchCond memberSearchCond) {
+        String username = memberSearchCond.getUsername();
+        if (isEmpty(username)) {
+            return null;
+        }
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return member.username.eq(username);
+        }
+        //정규화 컬럼을 그대로 비교해야 인덱스를 탄다. 접두어는 like 'abc%' 라 범위 검색이 된다
+        String normalized = Member.normalizeUsername(username);
+        return usernameMatch == UsernameMatch.PREFIX
+                ? member.normalizedUsername.startsWith(normalized)
+                : member.normalizedUsername.eq(normalized);
     }
 
     private BooleanExpression teamNameEp(String teamName) {
@@ -127,4 +156,8 @@ public class MemberJpaRepository {
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
+
+    private BooleanExpression memberRoleEp(MemberRole memberRole) {
+        return memberRole != null ? member.memberRole.eq(memberRole) : null;
+    }
 }
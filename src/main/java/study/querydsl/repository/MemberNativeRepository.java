@@ -0,0 +1,128 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.Member;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamDtoRowMapper;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.List;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * 조회 전용 네이티브 SQL. 결과는 APT 가 만든 RowMapper 로 ResultSet 에서 바로 DTO 를 만들고
+ * Hibernate 의 Object[] 튜플 단계를 거치지 않는다. select 컬럼 순서는 @QueryProjection 생성자 순서와 같아야 한다.
+ * member.read-path.* = native 로 고른다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberNativeRepository implements MemberRepositoryCustom {
+
+    private static final String SELECT_MEMBER_TEAM =
+            "select m.member_id, m.username, m.age, t.team_id, t.name" +
+            " from member m join team t on m.team_id = t.team_id";
+    //팀 없는 회원도 포함한다
+    private static final String SELECT_MEMBER_LEFT_TEAM =
+            "select m.member_id, m.username, m.age, t.team_id, t.name" +
+            " from member m left join team t on m.team_id = t.team_id";
+    private static final String COUNT_MEMBER_TEAM =
+            "select count(*) from member m join team t on m.team_id = t.team_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<MemberTeamDto> findAllQuerydsl() {
+        return jdbcTemplate.query(SELECT_MEMBER_LEFT_TEAM, MemberTeamDtoRowMapper.INSTANCE);
+    }
+
+    @Override
+    public List<MemberTeamDto> findByUsernameQuery(String username) {
+        return jdbcTemplate.query(
+                SELECT_MEMBER_LEFT_TEAM + " where m.username = :username",
+                new MapSqlParameterSource("username", username),
+                MemberTeamDtoRowMapper.INSTANCE);
+    }
+
+    public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = SELECT_MEMBER_TEAM + where(memberSearchCond, params);
+        return jdbcTemplate.query(sql, params, MemberTeamDtoRowMapper.INSTANCE);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
+        return searchPageComplex(memberSearchCond, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = where(memberSearchCond, params);
+        params.addValue("limit", pageable.getPageSize());
+        params.addValue("offset", pageable.getOffset());
+
+        List<MemberTeamDto> content = jdbcTemplate.query(
+                SELECT_MEMBER_TEAM + where + " order by m.member_id limit :limit offset :offset",
+                params,
+                MemberTeamDtoRowMapper.INSTANCE);
+
+        //마지막 페이지처럼 content 만으로 전체 수를 알 수 있으면 count 를 건너뛴다
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> jdbcTemplate.queryForObject(COUNT_MEMBER_TEAM + where, params, Long.class));
+    }
+
+    private String where(MemberSearchCond memberSearchCond, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        if (!isEmpty(memberSearchCond.getUsername())) {
+            appendUsername(memberSearchCond, where, params);
+        }
+        if (!isEmpty(memberSearchCond.getTeamName())) {
+            where.append(" and t.name = :teamName");
+            params.addValue("teamName", memberSearchCond.getTeamName());
+        }
+        if (memberSearchCond.getAgeGoe() != null) {
+            where.append(" and m.age >= :ageGoe");
+            params.addValue("ageGoe", memberSearchCond.getAgeGoe());
+        }
+        if (memberSearchCond.getAgeLoe() != null) {
+            where.append(" and m.age <= :ageLoe");
+            params.addValue("ageLoe", memberSearchCond.getAgeLoe());
+        }
+        if (memberSearchCond.getMemberRole() != null) {
+            where.append(" and m.member_role = :memberRole");
+            params.addValue("memberRole", memberSearchCond.getMemberRole().name());
+        }
+        return where.toString();
+    }
+
+    //IGNORE_CASE, PREFIX 는 idx_member_normalized_username 을 타도록 정규화 컬럼을 비교한다
+    private void appendUsername(MemberSearchCond memberSearchCond, StringBuilder where, MapSqlParameterSource params) {
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            where.append(" and m.username = :username");
+            params.addValue("username", memberSearchCond.getUsername());
+            return;
+        }
+
+        String normalized = Member.normalizeUsername(memberSearchCond.getUsername());
+        if (usernameMatch == UsernameMatch.PREFIX) {
+            where.append(" and m.normalized_username like :username escape '\\'");
+            params.addValue("username", escapeLike(normalized) + "%");
+        } else {
+            where.append(" and m.normalized_username = :username");
+            params.addValue("username", normalized);
+        }
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,31 +1,73 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.aggregation.LongIntStatsMap;
+import study.querydsl.aggregation.PrimitiveCollectors;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberChangeType;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberChangeDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
 import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QMemberOutbox.memberOutbox;
 import static study.querydsl.domain.QTeam.team;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberQueryRepository {
 
+    //조건 묶음 하나가 만드는 OR/IN 절의 최대 조건 수
+    private static final int BATCH_CHUNK_SIZE = 100;
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int MEMBER_ROLE = 1 << 4;
+    //username 비교 방식이 다르면 같은 IN/OR 절로 묶을 수 없으므로 모양을 나눈다
+    private static final int USERNAME_IGNORE_CASE = 1 << 5;
+    private static final int USERNAME_PREFIX = 1 << 6;
+
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchViewRepository memberSearchViewRepository;
+
+    //true 면 member join team 대신 member_search_view 를 읽는다
+    @Value("${member.search-view.enabled:false}")
+    private boolean searchViewEnabled;
+
     public List<MemberTeamDto> searchByBuilder(MemberSearchCond memberSearchCond) {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
 
         if (StringUtils.hasText(memberSearchCond.getUsername())) {
-            booleanBuilder.and(member.username.eq(memberSearchCond.getUsername()));
+            booleanBuilder.and(usernameEp(memberSearchCond));
         }
 
         if (StringUtils.hasText(memberSearchCond.getTeamName())) {
@@ -40,6 +82,10 @@ public class MemberQueryRepository {
             booleanBuilder.and(member.age.loe(memberSearchCond.getAgeLoe()));
         }
 
+        if (memberSearchCond.getMemberRole() != null) {
+            booleanBuilder.and(member.memberRole.eq(memberSearchCond.getMemberRole()));
+        }
+
         return queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -54,6 +100,10 @@ public class MemberQueryRepository {
     }
 
     public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        if (searchViewEnabled) {
+            return memberSearchViewRepository.searchByWhere(memberSearchCond);
+        }
+
         return queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -64,16 +114,289 @@ public class MemberQueryRepository {
                 .from(member)
                 .join(member.team, team)
                 .where(
-                        usernameEp(memberSearchCond.getUsername()),
+                        usernameEp(memberSearchCond),
                         teamNameEp(memberSearchCond.getTeamName()),
                         ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
+                )
+                .fetch();
+    }
+
+    //searchByWhere 와 같은 조건으로 afterMemberId 다음부터 member id 순서로 limit 건, 결과 전체를 메모리에 올리지 않고 이어 읽을 때 쓴다
+    public List<MemberTeamDto> searchAfter(MemberSearchCond memberSearchCond, Long afterMemberId, int limit) {
+        return queryFactory.select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .join(member.team, team)
+                .where(
+                        usernameEp(memberSearchCond),
+                        teamNameEp(memberSearchCond.getTeamName()),
+                        ageGoe(memberSearchCond.getAgeGoe()),
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole()),
+                        afterMemberId != null ? member.id.gt(afterMemberId) : null
+                )
+                .orderBy(member.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * 요청한 컬럼만 select 하고 필드명 -> 값 Map 으로 돌려준다. 순서는 fields 순서.
+     * teamName 을 고르거나 팀명 조건이 있을 때만 team 을 조인한다.
+     * 조인하지 않을 때도 searchByWhere 의 inner join 과 같은 행이 나오도록 팀 없는 회원은 뺀다.
+     */
+    public List<Map<String, Object>> searchFields(MemberSearchCond memberSearchCond, List<MemberField> fields) {
+        Expression<?>[] select = fields.stream()
+                .map(this::fieldExpression)
+                .toArray(Expression[]::new);
+        boolean teamJoin = !isEmpty(memberSearchCond.getTeamName())
+                || fields.stream().anyMatch(MemberField::needsTeamJoin);
+
+        JPAQuery<Tuple> query = queryFactory.select(select).from(member);
+        if (teamJoin) {
+            query.join(member.team, team);
+        }
+
+        List<Tuple> rows = query
+                .where(
+                        teamJoin ? null : member.team.isNotNull(),
+                        usernameEp(memberSearchCond),
+                        teamNameEp(memberSearchCond.getTeamName()),
+                        ageGoe(memberSearchCond.getAgeGoe()),
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
+                )
+                .fetch();
+
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(fields.get(i).getFieldName(), row.get(i, Object.class));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    private Expression<?> fieldExpression(MemberField field) {
+        switch (field) {
+            case MEMBER_ID:
+                return member.id;
+            case USERNAME:
+                return member.username;
+            case AGE:
+                return member.age;
+            case TEAM_ID:
+                return member.team.id;
+            case TEAM_NAME:
+                return team.name;
+            default:
+                throw new IllegalArgumentException("지원하지 않는 필드입니다. field=" + field);
+        }
+    }
+
+    /**
+     * 여러 조건을 모양(채워진 필드 조합)별로 묶어 묶음마다 쿼리 한 번으로 조회하고, 행을 각 조건에 다시 나눠 담는다.
+     * 결과는 조건 순서와 같고, 각 결과는 searchByWhere 와 같은 행을 member id 순으로 담는다.
+     * 같은 조건은 한 번만 조회한다. 하나의 트랜잭션(커넥션)에서 차례로 실행한다.
+     */
+    @Transactional(readOnly = true)
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCond> memberSearchConds) {
+        if (memberSearchConds.contains(null)) {
+            throw new IllegalArgumentException("조건 목록에 null 이 있습니다.");
+        }
+        Map<Integer, List<MemberSearchCond>> byShape = new LinkedHashMap<>();
+        for (MemberSearchCond memberSearchCond : new LinkedHashSet<>(memberSearchConds)) {
+            byShape.computeIfAbsent(shape(memberSearchCond), key -> new ArrayList<>()).add(memberSearchCond);
+        }
+
+        Map<MemberSearchCond, List<MemberTeamDto>> results = new HashMap<>();
+        byShape.forEach((shape, group) -> {
+            for (int from = 0; from < group.size(); from += BATCH_CHUNK_SIZE) {
+                searchChunk(shape, group.subList(from, Math.min(from + BATCH_CHUNK_SIZE, group.size())), results);
+            }
+        });
+
+        return memberSearchConds.stream()
+                .map(results::get)
+                .collect(Collectors.toList());
+    }
+
+    private void searchChunk(int shape, List<MemberSearchCond> chunk, Map<MemberSearchCond, List<MemberTeamDto>> results) {
+        List<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name, member.memberRole)
+                .from(member)
+                .join(member.team, team)
+                .where(anyOf(shape, chunk))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        chunk.forEach(memberSearchCond -> results.put(memberSearchCond, new ArrayList<>()));
+        for (Tuple row : rows) {
+            MemberTeamDto memberTeamDto = null;
+            for (MemberSearchCond memberSearchCond : chunk) {
+                if (!matches(memberSearchCond, row)) {
+                    continue;
+                }
+                if (memberTeamDto == null) {
+                    memberTeamDto = new MemberTeamDto(row.get(member.id), row.get(member.username),
+                            row.get(member.age), row.get(team.id), row.get(team.name));
+                }
+                results.get(memberSearchCond).add(memberTeamDto);
+            }
+        }
+    }
+
+    //등호 조건 하나뿐이면 IN 절, 아니면 조건별 AND 를 OR 로 잇는다
+    private Predicate anyOf(int shape, List<MemberSearchCond> chunk) {
+        if (shape == USERNAME) {
+            return member.username.in(chunk.stream().map(MemberSearchCond::getUsername).collect(Collectors.toList()));
+        }
+        if (shape == USERNAME_IGNORE_CASE) {
+            return member.normalizedUsername.in(chunk.stream()
+                    .map(memberSearchCond -> Member.normalizeUsername(memberSearchCond.getUsername()))
+                    .collect(Collectors.toList()));
+        }
+        if (shape == TEAM_NAME) {
+            return team.name.in(chunk.stream().map(MemberSearchCond::getTeamName).collect(Collectors.toList()));
+        }
+        if (shape == MEMBER_ROLE) {
+            return member.memberRole.in(chunk.stream().map(MemberSearchCond::getMemberRole).collect(Collectors.toList()));
+        }
+
+        BooleanBuilder booleanBuilder = new BooleanBuilder();
+        for (MemberSearchCond memberSearchCond : chunk) {
+            booleanBuilder.or(ExpressionUtils.allOf(
+                    usernameEp(memberSearchCond),
+                    teamNameEp(memberSearchCond.getTeamName()),
+                    ageGoe(memberSearchCond.getAgeGoe()),
+                    ageLoe(memberSearchCond.getAgeLoe()),
+                    memberRoleEp(memberSearchCond.getMemberRole())
+            ));
+        }
+        return booleanBuilder;
+    }
+
+    private int shape(MemberSearchCond memberSearchCond) {
+        int shape = 0;
+        if (!isEmpty(memberSearchCond.getUsername())) shape |= usernameShape(memberSearchCond.getUsernameMatch());
+        if (!isEmpty(memberSearchCond.getTeamName())) shape |= TEAM_NAME;
+        if (memberSearchCond.getAgeGoe() != null) shape |= AGE_GOE;
+        if (memberSearchCond.getAgeLoe() != null) shape |= AGE_LOE;
+        if (memberSearchCond.getMemberRole() != null) shape |= MEMBER_ROLE;
+        return shape;
+    }
+
+    private int usernameShape(UsernameMatch usernameMatch) {
+        if (usernameMatch == UsernameMatch.IGNORE_CASE) {
+            return USERNAME_IGNORE_CASE;
+        }
+        return usernameMatch == UsernameMatch.PREFIX ? USERNAME_PREFIX : USERNAME;
+    }
+
+    //usernameEp ~ memberRoleEp 와 같은 조건을 메모리에서 판정한다
+    private boolean matches(MemberSearchCond memberSearchCond, Tuple row) {
+        if (!isEmpty(memberSearchCond.getUsername()) && !usernameMatches(memberSearchCond, row.get(member.username))) {
+            return false;
+        }
+        if (!isEmpty(memberSearchCond.getTeamName()) && !memberSearchCond.getTeamName().equals(row.get(team.name))) {
+            return false;
+        }
+        int age = Objects.requireNonNull(row.get(member.age));
+        if (memberSearchCond.getAgeGoe() != null && age < memberSearchCond.getAgeGoe()) {
+            return false;
+        }
+        if (memberSearchCond.getAgeLoe() != null && age > memberSearchCond.getAgeLoe()) {
+            return false;
+        }
+        return memberSearchCond.getMemberRole() == null || memberSearchCond.getMemberRole() == row.get(member.memberRole);
+    }
+
+    private boolean usernameMatches(MemberSearchCond memberSearchCond, String username) {
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return memberSearchCond.getUsername().equals(username);
+        }
+        String normalized = Member.normalizeUsername(username);
+        if (normalized == null) {
+            return false;
+        }
+        String expected = Member.normalizeUsername(memberSearchCond.getUsername());
+        return usernameMatch == UsernameMatch.PREFIX ? normalized.startsWith(expected) : normalized.equals(expected);
+    }
+
+    //seq 가 since 보다 큰 회원 outbox 행을 seq 순으로 읽고 지금 회원 상태를 붙인다. 회원이 없으면 지워진 것이다
+    public List<MemberChangeDto> findChanges(long since, int limit) {
+        return queryFactory.select(new QMemberChangeDto(
+                        memberOutbox.seq,
+                        memberOutbox.aggregateId,
+                        member.id,
+                        member.username,
+                        member.age,
+                        member.memberRole,
+                        member.team.id,
+                        member.createDate,
+                        member.updateDate
+                ))
+                .from(memberOutbox)
+                .leftJoin(member).on(member.id.eq(memberOutbox.aggregateId))
+                .where(
+                        memberOutbox.seq.gt(since),
+                        memberOutbox.changeType.in(MemberChangeType.MEMBER_SAVED, MemberChangeType.MEMBER_REMOVED)
                 )
+                .orderBy(memberOutbox.seq.asc())
+                .limit(limit)
                 .fetch();
     }
 
-    private BooleanExpression usernameEp(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
+    //보관 중인 가장 오래된 seq
+    public Long findFirstOutboxSeq() {
+        return queryFactory.select(memberOutbox.seq.min())
+                .from(memberOutbox)
+                .fetchOne();
+    }
+
+    //팀 id 별 나이 count/sum/min/max, Tuple 을 Map<Long, List<..>> 로 다시 묶지 않고 원시 배열에 바로 누적한다
+    public LongIntStatsMap ageStatsByTeam(MemberSearchCond memberSearchCond) {
+        return queryFactory.select(team.id, member.age)
+                .from(member)
+                .join(member.team, team)
+                .where(
+                        usernameEp(memberSearchCond),
+                        teamNameEp(memberSearchCond.getTeamName()),
+                        ageGoe(memberSearchCond.getAgeGoe()),
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
+                )
+                .fetch()
+                .stream()
+                .collect(PrimitiveCollectors.intStatsByLongKey(
+                        tuple -> tuple.get(team.id),
+                        tuple -> tuple.get(member.age)));
+    }
+
+    private BooleanExpression usernameEp(MemberSearchCond memberSearchCond) {
+        String username = memberSearchCond.getUsername();
+        if (isEmpty(username)) {
+            return null;
+        }
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return member.username.eq(username);
+        }
+        //정규화 컬럼을 그대로 비교해야 인덱스를 탄다. 접두어는 like 'abc%' 라 범위 검색이 된다
+        String normalized = Member.normalizeUsername(username);
+        return usernameMatch == UsernameMatch.PREFIX
+                ? member.normalizedUsername.startsWith(normalized)
+                : member.normalizedUsername.eq(normalized);
     }
 
     private BooleanExpression teamNameEp(String teamName) {
@@ -87,4 +410,8 @@ public class MemberQueryRepository {
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
+
+    private BooleanExpression memberRoleEp(MemberRole memberRole) {
+        return memberRole != null ? member.memberRole.eq(memberRole) : null;
+    }
 }
@@ -5,15 +5,21 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.StringUtils;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
 import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.index.MemberBitmapIndex;
 
+import java.util.Collections;
 import java.util.List;
 
 import static org.springframework.util.ObjectUtils.isEmpty;
@@ -24,6 +30,12 @@ import static study.querydsl.domain.QTeam.*;
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final MemberSearchViewRepository memberSearchViewRepository;
+
+    //true 면 member join team 대신 member_search_view 를 읽는다
+    @Value("${member.search-view.enabled:false}")
+    private boolean searchViewEnabled;
 
     @Override
     public List<MemberTeamDto> findAllQuerydsl() {
@@ -55,6 +67,13 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
+        if (memberBitmapIndex.supports(memberSearchCond)) {
+            return searchPageByBitmapIndex(memberSearchCond, pageable);
+        }
+        if (searchViewEnabled) {
+            return memberSearchViewRepository.searchPage(memberSearchCond, pageable);
+        }
+
         List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -65,25 +84,19 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .join(member.team, team)
                 .where(
-                        usernameEp(memberSearchCond.getUsername()),
+                        usernameEp(memberSearchCond),
                         teamNameEp(memberSearchCond.getTeamName()),
                         ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
                 )
+                //비트맵 인덱스 경로와 같은 순서로 잘라야 인덱스를 켜고 끄거나 재구축 중이어도 같은 페이지가 나온다
+                .orderBy(member.id.asc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        Long count = queryFactory
-                .select(member.count())
-                .from(member)
-                .join(member.team, team)
-                .where(
-                        usernameEp(memberSearchCond.getUsername()),
-                        teamNameEp(memberSearchCond.getTeamName()),
-                        ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
-                ).fetchOne();
+        Long count = countQuery(memberSearchCond).fetchOne();
         count =  count != null ? count : 0L;
 
         return new PageImpl<>(content, pageable, count);
@@ -101,31 +114,72 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .join(member.team, team)
                 .where(
-                        usernameEp(memberSearchCond.getUsername()),
+                        usernameEp(memberSearchCond),
                         teamNameEp(memberSearchCond.getTeamName()),
                         ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
                 )
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Long> countQuery = queryFactory
+        JPAQuery<Long> countQuery = countQuery(memberSearchCond);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    //비트맵 인덱스로 count 와 페이지의 member id 를 구하고, 내용은 id 로만 조회한다
+    private Page<MemberTeamDto> searchPageByBitmapIndex(MemberSearchCond memberSearchCond, Pageable pageable) {
+        MemberBitmapIndex.SearchResult result = memberBitmapIndex.search(memberSearchCond, pageable.getOffset(), pageable.getPageSize());
+        if (result.getMemberIds().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, result.getTotal());
+        }
+
+        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .join(member.team, team)
+                .where(member.id.in(result.getMemberIds()))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        return new PageImpl<>(content, pageable, result.getTotal());
+    }
+
+    private JPAQuery<Long> countQuery(MemberSearchCond memberSearchCond) {
+        return queryFactory
                 .select(member.count())
                 .from(member)
                 .join(member.team, team)
                 .where(
-                        usernameEp(memberSearchCond.getUsername()),
+                        usernameEp(memberSearchCond),
                         teamNameEp(memberSearchCond.getTeamName()),
                         ageGoe(memberSearchCond.getAgeGoe()),
-                        ageLoe(memberSearchCond.getAgeLoe())
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        memberRoleEp(memberSearchCond.getMemberRole())
                 );
-
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
     }
 
-    private BooleanExpression usernameEp(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
+    private BooleanExpression usernameEp(MemberSearchCond memberSearchCond) {
+        String username = memberSearchCond.getUsername();
+        if (isEmpty(username)) {
+            return null;
+        }
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return member.username.eq(username);
+        }
+        //정규화 컬럼을 그대로 비교해야 인덱스를 탄다. 접두어는 like 'abc%' 라 범위 검색이 된다
+        String normalized = Member.normalizeUsername(username);
+        return usernameMatch == UsernameMatch.PREFIX
+                ? member.normalizedUsername.startsWith(normalized)
+                : member.normalizedUsername.eq(normalized);
     }
 
     private BooleanExpression teamNameEp(String teamName) {
@@ -139,4 +193,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
+
+    private BooleanExpression memberRoleEp(MemberRole memberRole) {
+        return memberRole != null ? member.memberRole.eq(memberRole) : null;
+    }
 }
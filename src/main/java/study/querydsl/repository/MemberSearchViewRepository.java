@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.List;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static study.querydsl.domain.QMemberSearchView.memberSearchView;
+
+/**
+ * member_search_view 단일 테이블 검색. member join team 검색과 같은 결과를 조인 없이 낸다.
+ * inner join 과 맞추기 위해 팀 없는 회원은 뺀다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberSearchViewRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        return queryFactory.select(new QMemberTeamDto(
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName
+                ))
+                .from(memberSearchView)
+                .where(where(memberSearchCond))
+                .fetch();
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCond memberSearchCond, Pageable pageable) {
+        //내용과 count 가 같은 조건을 쓴다
+        Predicate where = where(memberSearchCond);
+
+        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName
+                ))
+                .from(memberSearchView)
+                .where(where)
+                .orderBy(memberSearchView.memberId.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Long count = queryFactory
+                .select(memberSearchView.count())
+                .from(memberSearchView)
+                .where(where)
+                .fetchOne();
+
+        return new PageImpl<>(content, pageable, count != null ? count : 0L);
+    }
+
+    private Predicate where(MemberSearchCond memberSearchCond) {
+        return ExpressionUtils.allOf(
+                memberSearchView.teamId.isNotNull(),
+                usernameEp(memberSearchCond),
+                teamNameEp(memberSearchCond.getTeamName()),
+                ageGoe(memberSearchCond.getAgeGoe()),
+                ageLoe(memberSearchCond.getAgeLoe()),
+                memberRoleEp(memberSearchCond.getMemberRole())
+        );
+    }
+
+    private BooleanExpression usernameEp(MemberSearchCond memberSearchCond) {
+        String username = memberSearchCond.getUsername();
+        if (isEmpty(username)) {
+            return null;
+        }
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return memberSearchView.username.eq(username);
+        }
+        //정규화 컬럼을 그대로 비교해야 인덱스를 탄다. 접두어는 like 'abc%' 라 범위 검색이 된다
+        String normalized = Member.normalizeUsername(username);
+        return usernameMatch == UsernameMatch.PREFIX
+                ? memberSearchView.normalizedUsername.startsWith(normalized)
+                : memberSearchView.normalizedUsername.eq(normalized);
+    }
+
+    private BooleanExpression teamNameEp(String teamName) {
+        return isEmpty(teamName) ? null : memberSearchView.teamName.eq(teamName);
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberSearchView.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberSearchView.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression memberRoleEp(MemberRole memberRole) {
+        return memberRole != null ? memberSearchView.memberRole.eq(memberRole) : null;
+    }
+}
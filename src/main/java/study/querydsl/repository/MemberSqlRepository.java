@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.List;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * MemberRepositoryCustom 과 같은 조회를 JPQL 번역 없이 querydsl-sql 로 바로 SQL 을 만들어 실행한다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberSqlRepository implements MemberRepositoryCustom {
+
+    private final SQLQueryFactory queryFactory;
+
+    @Override
+    public List<MemberTeamDto> findAllQuerydsl() {
+        return selectMemberTeam()
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .fetch();
+    }
+
+    @Override
+    public List<MemberTeamDto> findByUsernameQuery(String username) {
+        return selectMemberTeam()
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(member.username.eq(username))
+                .fetch();
+    }
+
+    public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        return selectMemberTeam()
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(searchConditions(memberSearchCond))
+                .fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
+        return searchPageComplex(memberSearchCond, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable) {
+        List<MemberTeamDto> content = selectMemberTeam()
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(searchConditions(memberSearchCond))
+                .orderBy(member.memberId.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        SQLQuery<Long> countQuery = queryFactory
+                .select(member.memberId.count())
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(searchConditions(memberSearchCond));
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam() {
+        return queryFactory.select(new QMemberTeamDto(
+                member.memberId,
+                member.username,
+                member.age,
+                team.teamId,
+                team.name
+        ));
+    }
+
+    //샤드별 조회(ShardedMemberRepository)도 같은 조건을 쓴다
+    static Predicate[] searchConditions(MemberSearchCond memberSearchCond) {
+        return new Predicate[]{
+                usernameEp(memberSearchCond),
+                teamNameEp(memberSearchCond.getTeamName()),
+                ageGoe(memberSearchCond.getAgeGoe()),
+                ageLoe(memberSearchCond.getAgeLoe()),
+                memberRoleEp(memberSearchCond.getMemberRole())
+        };
+    }
+
+    private static BooleanExpression usernameEp(MemberSearchCond memberSearchCond) {
+        String username = memberSearchCond.getUsername();
+        if (isEmpty(username)) {
+            return null;
+        }
+        UsernameMatch usernameMatch = memberSearchCond.getUsernameMatch();
+        if (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) {
+            return member.username.eq(username);
+        }
+        //정규화 컬럼을 그대로 비교해야 인덱스를 탄다. 접두어는 like 'abc%' 라 범위 검색이 된다
+        String normalized = Member.normalizeUsername(username);
+        return usernameMatch == UsernameMatch.PREFIX
+                ? member.normalizedUsername.startsWith(normalized)
+                : member.normalizedUsername.eq(normalized);
+    }
+
+    private static BooleanExpression teamNameEp(String teamName) {
+        return isEmpty(teamName) ? null : team.name.eq(teamName);
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private static BooleanExpression memberRoleEp(MemberRole memberRole) {
+        return memberRole != null ? member.memberRole.eq(memberRole.name()) : null;
+    }
+}
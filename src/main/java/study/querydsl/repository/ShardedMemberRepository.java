@@ -0,0 +1,269 @@
+package study.querydsl.repository;
+
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.id.SnowflakeIdGenerator;
+import study.querydsl.shard.MemberShards;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * member 를 team_id 로 나눈 샤드({@link MemberShards}) 위의 저장/조회.
+ * 팀은 모든 샤드에 복제하므로 member join team 은 회원이 있는 샤드 안에서 끝난다.
+ * 팀을 아는 쓰기, 조회는 그 팀의 샤드로 보내고, 검색은 모든 샤드에 동시에 보낸 뒤 member id 순으로 병합한다.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class ShardedMemberRepository {
+
+    private final MemberShards memberShards;
+    private final SnowflakeIdGenerator idGenerator;
+
+    @Value("${member.sharding.write-attempts:3}")
+    private int writeAttempts;
+
+    @Value("${member.sharding.write-backoff-ms:100}")
+    private long writeBackoffMillis;
+
+    public Long saveTeam(String name) {
+        return saveTeam(idGenerator.nextId(), name);
+    }
+
+    /**
+     * 팀을 모든 샤드에 upsert 한다. 샤드마다 따로 커밋되므로 한 번에 모두 반영되지는 않는다.
+     * 같은 teamId 로 다시 불러도 결과가 같으므로, 재시도 끝에 실패하면 호출자는 같은 teamId 로 다시 부르면 된다.
+     */
+    public Long saveTeam(Long teamId, String name) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (MemberShards.Shard shard : memberShards.all()) {
+            upsertTeamWithRetry(shard, teamId, name, now);
+        }
+        return teamId;
+    }
+
+    public Long saveMember(String username, int age, MemberRole memberRole, Long teamId) {
+        long memberId = idGenerator.nextId();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        memberShards.shardFor(teamId).getQueryFactory().insert(member)
+                .set(member.memberId, memberId)
+                .set(member.username, username)
+                .set(member.normalizedUsername, Member.normalizeUsername(username))
+                .set(member.age, age)
+                .set(member.memberRole, memberRole != null ? memberRole.name() : null)
+                .set(member.teamId, teamId)
+                .set(member.createDate, now)
+                .set(member.updateDate, now)
+                .execute();
+        return memberId;
+    }
+
+    public Optional<MemberTeamDto> findOne(Long memberId, Long teamId) {
+        return Optional.ofNullable(findOne(memberShards.shardFor(teamId), memberId));
+    }
+
+    //팀을 모르면 모든 샤드에 묻는다
+    public Optional<MemberTeamDto> findOne(Long memberId) {
+        return scatter(shard -> findOne(shard, memberId))
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    public List<MemberTeamDto> findByTeam(Long teamId) {
+        return selectMemberTeam(memberShards.shardFor(teamId).getQueryFactory())
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(member.teamId.eq(teamId))
+                .orderBy(member.memberId.asc())
+                .fetch();
+    }
+
+    /**
+     * searchPageSimple 과 같은 조건, 같은 member id 순서의 페이지. 샤드마다 offset + size 개를 받아 병합하므로
+     * 뒤 페이지일수록 샤드에서 읽는 양이 늘어난다. 정렬은 member id 오름차순만 지원한다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCond memberSearchCond, Pageable pageable) {
+        long fetchSize = pageable.getOffset() + pageable.getPageSize();
+        List<ShardPage> shardPages = scatter(shard -> {
+            List<MemberTeamDto> content = selectMemberTeam(shard.getQueryFactory())
+                    .join(team).on(member.teamId.eq(team.teamId))
+                    .where(MemberSqlRepository.searchConditions(memberSearchCond))
+                    .orderBy(member.memberId.asc())
+                    .limit(fetchSize)
+                    .fetch();
+            Long count = shard.getQueryFactory()
+                    .select(member.memberId.count())
+                    .from(member)
+                    .join(team).on(member.teamId.eq(team.teamId))
+                    .where(MemberSqlRepository.searchConditions(memberSearchCond))
+                    .fetchOne();
+            return new ShardPage(content, count != null ? count : 0L);
+        });
+
+        long total = shardPages.stream().mapToLong(shardPage -> shardPage.total).sum();
+        List<MemberTeamDto> content = mergeById(shardPages, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    //샤드별로 정렬된 결과를 k-way 병합해 offset 만큼 건너뛰고 limit 개를 담는다
+    private List<MemberTeamDto> mergeById(List<ShardPage> shardPages, long offset, int limit) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparing((Cursor cursor) -> cursor.current().getMemberId()));
+        for (ShardPage shardPage : shardPages) {
+            if (!shardPage.content.isEmpty()) {
+                cursors.add(new Cursor(shardPage.content));
+            }
+        }
+
+        List<MemberTeamDto> content = new ArrayList<>(limit);
+        long skipped = 0;
+        while (!cursors.isEmpty() && content.size() < limit) {
+            Cursor cursor = cursors.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                content.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return content;
+    }
+
+    private void upsertTeamWithRetry(MemberShards.Shard shard, Long teamId, String name, Timestamp now) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                upsertTeam(shard.getQueryFactory(), teamId, name, now);
+                return;
+            } catch (DataAccessException e) {
+                if (attempt >= writeAttempts) {
+                    throw new IllegalStateException("팀을 샤드에 저장하지 못했습니다. 같은 teamId 로 다시 호출해야 합니다. teamId="
+                            + teamId + ", shard=" + shard.getIndex(), e);
+                }
+                log.warn("team upsert failed. teamId = {}, shard = {}, attempt = {}", teamId, shard.getIndex(), attempt, e);
+                sleep(writeBackoffMillis * attempt);
+            }
+        }
+    }
+
+    private void upsertTeam(SQLQueryFactory queryFactory, Long teamId, String name, Timestamp now) {
+        if (updateTeam(queryFactory, teamId, name, now) > 0) {
+            return;
+        }
+        try {
+            queryFactory.insert(team)
+                    .set(team.teamId, teamId)
+                    .set(team.name, name)
+                    .set(team.ageSum, 0L)
+                    .set(team.memberCount, 0L)
+                    .set(team.createDate, now)
+                    .set(team.updateDate, now)
+                    .execute();
+        } catch (DuplicateKeyException e) {
+            //같은 teamId 로 동시에 부른 쪽이 먼저 넣었다
+            updateTeam(queryFactory, teamId, name, now);
+        }
+    }
+
+    private long updateTeam(SQLQueryFactory queryFactory, Long teamId, String name, Timestamp now) {
+        return queryFactory.update(team)
+                .set(team.name, name)
+                .set(team.updateDate, now)
+                .where(team.teamId.eq(teamId))
+                .execute();
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("팀 저장 재시도 중 인터럽트되었습니다.", e);
+        }
+    }
+
+    private MemberTeamDto findOne(MemberShards.Shard shard, Long memberId) {
+        return selectMemberTeam(shard.getQueryFactory())
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(member.memberId.eq(memberId))
+                .fetchOne();
+    }
+
+    private <T> List<T> scatter(ShardQuery<T> query) {
+        List<CompletableFuture<T>> futures = memberShards.all().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.execute(shard), memberShards.getExecutor()))
+                .collect(Collectors.toList());
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam(SQLQueryFactory queryFactory) {
+        return queryFactory.select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name
+                ))
+                .from(member);
+    }
+
+    private interface ShardQuery<T> {
+        T execute(MemberShards.Shard shard);
+    }
+
+    private static class ShardPage {
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        ShardPage(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+
+    private static class Cursor {
+        private final List<MemberTeamDto> content;
+        private int position;
+
+        Cursor(List<MemberTeamDto> content) {
+            this.content = content;
+        }
+
+        MemberTeamDto current() {
+            return content.get(position);
+        }
+
+        boolean advance() {
+            return ++position < content.size();
+        }
+    }
+}
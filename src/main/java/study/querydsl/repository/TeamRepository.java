@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.Team;
+
+import java.util.List;
+
+@Repository
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+    List<Team> findByName(String name);
+}
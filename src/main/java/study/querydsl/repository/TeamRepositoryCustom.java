@@ -0,0 +1,14 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+    List<TeamStatsDto> findTeamStats();
+    Page<Team> findPageWithMembers(Pageable pageable);
+    List<Team> findWithMembersAfter(Long afterTeamId, int limit);
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.Collections;
+import java.util.List;
+
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    //Team 에 유지되는 집계 컬럼을 그대로 읽는다
+    @Override
+    public List<TeamStatsDto> findTeamStats() {
+        return queryFactory.select(new QTeamStatsDto(
+                        team.id,
+                        team.name,
+                        team.memberCount,
+                        team.ageSum,
+                        team.ageMin,
+                        team.ageMax
+                ))
+                .from(team)
+                .fetch();
+    }
+
+    /**
+     * 컬렉션 fetch join 에 offset/limit 을 걸면 Hibernate 가 전체를 읽어 메모리에서 자른다(HHH000104).
+     * 그래서 먼저 team id 만 페이지로 읽고, 그 id 의 팀과 회원을 fetch join 한 번으로 읽는다. 정렬은 team id 순서로 고정한다.
+     */
+    @Override
+    public Page<Team> findPageWithMembers(Pageable pageable) {
+        List<Long> teamIds = queryFactory.select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory.select(team.count()).from(team);
+        if (teamIds.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, countQuery.fetchOne());
+        }
+        return PageableExecutionUtils.getPage(fetchWithMembers(teamIds), pageable, countQuery::fetchOne);
+    }
+
+    //offset 없이 afterTeamId 다음 팀부터 읽는다. 뒤 페이지로 갈수록 느려지지 않는다
+    @Override
+    public List<Team> findWithMembersAfter(Long afterTeamId, int limit) {
+        List<Long> teamIds = queryFactory.select(team.id)
+                .from(team)
+                .where(afterTeamId != null ? team.id.gt(afterTeamId) : null)
+                .orderBy(team.id.asc())
+                .limit(limit)
+                .fetch();
+        return teamIds.isEmpty() ? Collections.emptyList() : fetchWithMembers(teamIds);
+    }
+
+    private List<Team> fetchWithMembers(List<Long> teamIds) {
+        return queryFactory.selectFrom(team)
+                .distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc(), member.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,239 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberDataVersion;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberChangeType;
+import study.querydsl.dto.MemberBulkProgress;
+import study.querydsl.index.MemberBitmapIndex;
+import study.querydsl.index.UsernamePrefixIndex;
+import study.querydsl.outbox.MemberOutboxWriter;
+import study.querydsl.readmodel.MemberSearchViewWriter;
+import study.querydsl.support.AfterCommit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import static study.querydsl.domain.QMember.member;
+
+/**
+ * member 전체에 대한 update/delete 를 id 묶음으로 나눠 묶음마다 짧은 트랜잭션으로 실행한다.
+ * 한 문장으로 테이블 전체를 잠그지 않고, 실패해도 이미 커밋된 묶음은 남는다(lastMemberId 부터 다시 실행할 수 있다).
+ * 묶음마다 읽기 모델, outbox, 인덱스를 맞추고 커밋 후 1차/2차 캐시에서 해당 회원을 내린다.
+ * 묶음은 호출자 트랜잭션과 별개로 커밋되므로, 호출자 트랜잭션이 같은 행을 잠그고 있으면 기다리게 된다. 팀 집계는 끝난 뒤 한 번 다시 계산한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final MemberSearchViewWriter memberSearchViewWriter;
+    private final MemberOutboxWriter memberOutboxWriter;
+    private final MemberDataVersion memberDataVersion;
+    private final MemberBitmapIndex memberBitmapIndex;
+    private final UsernamePrefixIndex usernamePrefixIndex;
+    private final TeamStatsService teamStatsService;
+    private final int defaultChunkSize;
+
+    public MemberBulkService(JPAQueryFactory queryFactory,
+                             EntityManagerFactory entityManagerFactory,
+                             PlatformTransactionManager transactionManager,
+                             MemberSearchViewWriter memberSearchViewWriter,
+                             MemberOutboxWriter memberOutboxWriter,
+                             MemberDataVersion memberDataVersion,
+                             MemberBitmapIndex memberBitmapIndex,
+                             UsernamePrefixIndex usernamePrefixIndex,
+                             TeamStatsService teamStatsService,
+                             @Value("${member.bulk.chunk-size:1000}") int defaultChunkSize) {
+        this.queryFactory = queryFactory;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memberSearchViewWriter = memberSearchViewWriter;
+        this.memberOutboxWriter = memberOutboxWriter;
+        this.memberDataVersion = memberDataVersion;
+        this.memberBitmapIndex = memberBitmapIndex;
+        this.usernamePrefixIndex = usernamePrefixIndex;
+        this.teamStatsService = teamStatsService;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public MemberBulkProgress update(Predicate condition, UnaryOperator<JPAUpdateClause> assignments) {
+        return update(condition, assignments, defaultChunkSize, progress -> {
+        });
+    }
+
+    /**
+     * condition 에 맞는 회원에 assignments 를 적용한다. updateDate 는 함께 갱신되고, 회원마다 outbox 행을 남겨 변경 피드에 잡힌다.
+     */
+    public MemberBulkProgress update(Predicate condition, UnaryOperator<JPAUpdateClause> assignments,
+                                     int chunkSize, Consumer<MemberBulkProgress> progressListener) {
+        return run("update", condition, chunkSize, progressListener, ids -> {
+            long updated = assignments.apply(queryFactory.update(member))
+                    .set(member.updateDate, LocalDateTime.now())
+                    .where(condition, member.id.in(ids))
+                    .execute();
+
+            //assignments 가 무엇을 바꿨는지 모르므로 읽기 모델과 username 인덱스는 바뀐 행을 다시 읽어 맞춘다
+            memberSearchViewWriter.refreshMembers(ids);
+            List<Tuple> usernames = queryFactory.select(member.id, member.username)
+                    .from(member)
+                    .where(member.id.in(ids))
+                    .fetch();
+            AfterCommit.run(() -> usernames.forEach(tuple ->
+                    usernamePrefixIndex.put(tuple.get(member.id), tuple.get(member.username))));
+            //변경 피드는 회원마다 행이 있어야 하고, 벌크 표시는 전체를 다시 읽는 구독자용이다
+            memberOutboxWriter.appendSavedMembers(ids);
+            memberOutboxWriter.append(MemberChangeType.MEMBERS_BULK_UPDATED, null, null);
+            return updated;
+        });
+    }
+
+    public MemberBulkProgress delete(Predicate condition) {
+        return delete(condition, defaultChunkSize, progress -> {
+        });
+    }
+
+    public MemberBulkProgress delete(Predicate condition, int chunkSize, Consumer<MemberBulkProgress> progressListener) {
+        return run("delete", condition, chunkSize, progressListener, ids -> {
+            long deleted = queryFactory.delete(member)
+                    .where(condition, member.id.in(ids))
+                    .execute();
+
+            //읽은 id 중 조건이 바뀌어 남은 회원은 빼고 실제로 지워진 회원만 삭제로 남긴다
+            List<Long> remaining = queryFactory.select(member.id)
+                    .from(member)
+                    .where(member.id.in(ids))
+                    .fetch();
+            List<Long> removed = new ArrayList<>(ids);
+            removed.removeAll(new HashSet<>(remaining));
+
+            memberSearchViewWriter.refreshMembers(ids);
+            AfterCommit.run(() -> removed.forEach(usernamePrefixIndex::remove));
+            memberOutboxWriter.appendRemovedMembers(removed);
+            memberOutboxWriter.append(MemberChangeType.MEMBERS_BULK_DELETED, null, null);
+            return deleted;
+        });
+    }
+
+    private MemberBulkProgress run(String operation, Predicate condition, int chunkSize,
+                                   Consumer<MemberBulkProgress> progressListener, ChunkAction action) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. chunkSize=" + chunkSize);
+        }
+
+        long start = System.currentTimeMillis();
+        Long lastMemberId = null;
+        long rows = 0;
+        int chunks = 0;
+
+        while (true) {
+            Long afterId = lastMemberId;
+            ChunkResult chunk = chunkTransaction.execute(status -> {
+                //다음 묶음의 id 를 keyset 으로 읽고, 읽은 id 만 update/delete 한다.
+                //구간(between)으로 고치면 읽은 뒤 그 구간에 들어온 회원도 바뀌는데, 그 회원은 outbox, 읽기 모델, 캐시에서 빠진다
+                List<Long> ids = queryFactory.select(member.id)
+                        .from(member)
+                        .where(condition, afterId != null ? member.id.gt(afterId) : null)
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return ChunkResult.EMPTY;
+                }
+
+                long affected = action.execute(ids);
+                AfterCommit.run(memberBitmapIndex::markStale);
+                AfterCommit.run(memberDataVersion::invalidate);
+                return new ChunkResult(ids, affected);
+            });
+
+            if (chunk == null || chunk.ids.isEmpty()) {
+                break;
+            }
+            evict(chunk.ids);
+
+            lastMemberId = chunk.ids.get(chunk.ids.size() - 1);
+            rows += chunk.affected;
+            chunks++;
+            MemberBulkProgress progress = new MemberBulkProgress(operation, chunks, rows,
+                    System.currentTimeMillis() - start, lastMemberId, false);
+            log.info("member bulk {} chunk {} committed. rows = {}, rows/s = {}", operation, chunks, rows,
+                    String.format("%.0f", progress.getRowsPerSecond()));
+            progressListener.accept(progress);
+
+            if (chunk.ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        if (rows > 0) {
+            teamStatsService.reconcile();
+        }
+        MemberBulkProgress done = new MemberBulkProgress(operation, chunks, rows,
+                System.currentTimeMillis() - start, lastMemberId, true);
+        log.info("member bulk {} finished. {}", operation, done);
+        progressListener.accept(done);
+        return done;
+    }
+
+    //커밋된 묶음의 회원을 2차 캐시와, 호출 스레드에 열린 영속성 컨텍스트에서 내린다
+    private void evict(List<Long> ids) {
+        ids.forEach(id -> entityManagerFactory.getCache().evict(Member.class, id));
+
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (em == null) {
+            return;
+        }
+        for (Long id : ids) {
+            Member managed = findManaged(em, id);
+            if (managed != null) {
+                em.detach(managed);
+            }
+        }
+    }
+
+    //프록시를 만들거나 DB 를 읽지 않고 이미 관리 중인 엔티티만 찾는다
+    private Member findManaged(EntityManager em, Long id) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        return (Member) session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+    }
+
+    private interface ChunkAction {
+        long execute(List<Long> ids);
+    }
+
+    private static class ChunkResult {
+        private static final ChunkResult EMPTY = new ChunkResult(Collections.emptyList(), 0);
+
+        private final List<Long> ids;
+        private final long affected;
+
+        ChunkResult(List<Long> ids, long affected) {
+            this.ids = ids;
+            this.affected = affected;
+        }
+    }
+}
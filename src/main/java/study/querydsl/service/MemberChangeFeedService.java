@@ -0,0 +1,54 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.MemberChangesResponse;
+import study.querydsl.repository.MemberQueryRepository;
+
+import java.util.List;
+
+/**
+ * member_outbox 의 seq 기반 회원 변경 피드.
+ * seq 는 outbox 행이 커밋되어 보인 뒤 {@link study.querydsl.outbox.MemberOutboxSequencer} 가 매기므로,
+ * 먼저 flush 하고 늦게 커밋한 트랜잭션도 이미 지나간 seq 뒤에 끼어들지 않는다. 커밋 후 한 poll 주기 안에 피드에 나온다.
+ * 변경마다 지금 회원 상태를 내려주고, 지워진 회원은 tombstone 으로 내려준다.
+ * 보관 기간이 지나 지워진 구간부터 이어받으려 하면 IllegalStateException 을 던진다. 이때는 전체를 다시 받아야 한다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberChangeFeedService {
+
+    private final MemberQueryRepository memberQueryRepository;
+
+    @Value("${member.changes.max-limit:1000}")
+    private int maxLimit;
+
+    public MemberChangesResponse findChanges(long since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+
+        //한 건 더 읽어 다음 묶음이 있는지 본다
+        List<MemberChangeDto> changes = memberQueryRepository.findChanges(since, pageSize + 1);
+        if (since > 0 && (changes.isEmpty() || changes.get(0).getSeq() > since + 1)) {
+            checkRetained(since);
+        }
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new MemberChangesResponse(changes, next, hasMore);
+    }
+
+    //seq 는 빈틈 없이 매겨지고 오래된 것부터 지워지므로, 남은 가장 작은 seq 가 since 다음보다 크면 그 사이 변경을 잃은 것이다
+    private void checkRetained(long since) {
+        Long firstSeq = memberQueryRepository.findFirstOutboxSeq();
+        if (firstSeq != null && firstSeq > since + 1) {
+            throw new IllegalStateException("보관 기간이 지나 이어받을 수 없습니다. since=" + since + ", firstSeq=" + firstSeq);
+        }
+    }
+}
@@ -4,17 +4,23 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.domain.Member;
+import study.querydsl.dto.MemberBulkProgress;
 import study.querydsl.repository.MemberRepository;
 
 import java.util.List;
 
+import static study.querydsl.domain.QMember.member;
+
 @Service
 @RequiredArgsConstructor
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberBulkService memberBulkService;
 
+    @Transactional
     public Long join(Member member) {
         Member savedMember = memberRepository.save(member);
         return savedMember.getId();
@@ -22,7 +28,7 @@ public class MemberService {
 
     public Member findOne(Long id) {
         return memberRepository.findById(id)
-                .orElse(Member.createMember("Empty", 999, null));
+                .orElseGet(() -> Member.createMember("Empty", 999, null));
     }
 
     public List<Member> findAll() {
@@ -33,4 +39,10 @@ public class MemberService {
         return memberRepository.findAll(pageable);
     }
 
+    //전체 회원 나이를 id 묶음마다 짧은 트랜잭션으로 올린다. 회원마다 outbox 행이 남고, 팀 집계는 끝난 뒤 다시 계산한다
+    public int addAgeInBulk(int amount) {
+        MemberBulkProgress progress = memberBulkService.update(null, update -> update.set(member.age, member.age.add(amount)));
+        return (int) progress.getRows();
+    }
+
 }
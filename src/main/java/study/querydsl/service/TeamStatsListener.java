@@ -0,0 +1,49 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.domain.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Objects;
+
+@RequiredArgsConstructor
+public class TeamStatsListener {
+
+    private final TeamStatsWriter teamStatsWriter;
+
+    //flush 시점에 마지막으로 반영된 소속/나이와 비교해 증감분만 더한다. 팀 엔티티나 팀의 회원 컬렉션은 읽지 않는다
+    @PostPersist
+    public void onPersist(Member member) {
+        Long teamId = member.getTeamId();
+        if (teamId != null) {
+            teamStatsWriter.addMember(teamId, member.getAge());
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Member member) {
+        Long appliedTeamId = member.getAppliedTeamId();
+        Long teamId = member.getTeamId();
+        if (Objects.equals(appliedTeamId, teamId)) {
+            if (teamId != null && member.getAppliedAge() != member.getAge()) {
+                teamStatsWriter.changeAge(teamId, member.getAppliedAge(), member.getAge());
+            }
+            return;
+        }
+        if (appliedTeamId != null) {
+            teamStatsWriter.removeMember(appliedTeamId, member.getAppliedAge());
+        }
+        if (teamId != null) {
+            teamStatsWriter.addMember(teamId, member.getAge());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Member member) {
+        if (member.getAppliedTeamId() != null) {
+            teamStatsWriter.removeMember(member.getAppliedTeamId(), member.getAppliedAge());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.TeamRepository;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsService {
+
+    private final TeamRepository teamRepository;
+    private final TeamStatsWriter teamStatsWriter;
+
+    @Transactional(readOnly = true)
+    public List<TeamStatsDto> findTeamStats() {
+        return teamRepository.findTeamStats();
+    }
+
+    //증분 갱신을 거치지 않은 변경(벌크 삭제 등)과 min/max 오차를 주기적으로 바로잡는다
+    @Scheduled(fixedDelayString = "${team.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${team.stats.reconcile-interval-ms:600000}")
+    @Transactional
+    public int reconcile() {
+        int fixed = teamStatsWriter.reconcile();
+        log.info("team stats reconciled. fixed teams = {}", fixed);
+        return fixed;
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * team 의 집계 컬럼을 읽지 않고 SQL 한 문장으로 더하고 뺀다. 동시에 가입해도 갱신이 사라지지 않는다.
+ * 원본 변경과 같은 커넥션, 같은 트랜잭션을 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsWriter {
+
+    private static final String ADD_MEMBER_SQL =
+            "update team set member_count = member_count + 1, age_sum = age_sum + ?," +
+            " age_min = least(coalesce(age_min, ?), ?), age_max = greatest(coalesce(age_max, ?), ?)" +
+            " where team_id = ?";
+    //min, max 는 빠진 값을 알 수 없으므로 다음 재집계 전까지 범위가 넓게 남을 수 있다. 마지막 회원이 빠지면 비운다
+    private static final String REMOVE_MEMBER_SQL =
+            "update team set member_count = member_count - 1," +
+            " age_sum = case when member_count <= 1 then 0 else age_sum - ? end," +
+            " age_min = case when member_count <= 1 then null else age_min end," +
+            " age_max = case when member_count <= 1 then null else age_max end" +
+            " where team_id = ?";
+    private static final String CHANGE_AGE_SQL =
+            "update team set age_sum = age_sum - ? + ?," +
+            " age_min = least(coalesce(age_min, ?), ?), age_max = greatest(coalesce(age_max, ?), ?)" +
+            " where team_id = ?";
+
+    //바뀐 팀만 원본에서 다시 센다. 조건과 갱신이 한 문장이라 그 사이의 증분을 덮어쓰지 않는다
+    private static final String RECONCILE_SQL =
+            "update team t set" +
+            " member_count = (select count(*) from member m where m.team_id = t.team_id)," +
+            " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = t.team_id)," +
+            " age_min = (select min(m.age) from member m where m.team_id = t.team_id)," +
+            " age_max = (select max(m.age) from member m where m.team_id = t.team_id)" +
+            " where t.member_count <> (select count(*) from member m where m.team_id = t.team_id)" +
+            " or t.age_sum <> (select coalesce(sum(m.age), 0) from member m where m.team_id = t.team_id)" +
+            " or coalesce(t.age_min, -1) <> coalesce((select min(m.age) from member m where m.team_id = t.team_id), -1)" +
+            " or coalesce(t.age_max, -1) <> coalesce((select max(m.age) from member m where m.team_id = t.team_id), -1)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addMember(Long teamId, int age) {
+        jdbcTemplate.update(ADD_MEMBER_SQL, age, age, age, age, age, teamId);
+    }
+
+    public void removeMember(Long teamId, int age) {
+        jdbcTemplate.update(REMOVE_MEMBER_SQL, age, teamId);
+    }
+
+    public void changeAge(Long teamId, int oldAge, int newAge) {
+        jdbcTemplate.update(CHANGE_AGE_SQL, oldAge, newAge, newAge, newAge, newAge, newAge, teamId);
+    }
+
+    //고친 팀 수를 돌려준다
+    public int reconcile() {
+        return jdbcTemplate.update(RECONCILE_SQL);
+    }
+}
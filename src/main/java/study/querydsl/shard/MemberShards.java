@@ -0,0 +1,117 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * member 를 team_id 로 나눠 담는 샤드 DB 목록. 샤드마다 커넥션 풀과 querydsl-sql 팩토리를 따로 둔다.
+ * 팀이 없는 회원은 0번 샤드에 둔다. 샤드 수를 바꾸면 기존 행은 옮겨지지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class MemberShards implements DisposableBean {
+
+    private final List<Shard> shards;
+    //scatter-gather 조회용. 작업 하나가 샤드 커넥션 하나를 쓰므로 모든 샤드의 풀을 다 쓸 만큼 둔다.
+    //샤드 수만큼만 두면 동시에 들어온 검색이 커넥션이 남아도 앞 요청이 끝날 때까지 줄을 선다
+    @Getter
+    private final ExecutorService executor;
+
+    public MemberShards(@Value("${member.sharding.urls}") String[] urls,
+                        @Value("${member.sharding.username:sa}") String username,
+                        @Value("${member.sharding.password:}") String password,
+                        @Value("${member.sharding.pool-size:10}") int poolSize,
+                        @Value("${member.sharding.executor-threads:0}") int executorThreads) {
+        if (urls.length == 0) {
+            throw new IllegalArgumentException("member.sharding.urls 에 샤드가 하나 이상 있어야 합니다.");
+        }
+
+        List<Shard> shards = new ArrayList<>(urls.length);
+        for (int i = 0; i < urls.length; i++) {
+            shards.add(new Shard(i, dataSource(i, urls[i].trim(), username, password, poolSize)));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+
+        //0 이면 샤드 수 x 풀 크기
+        int threads = executorThreads > 0 ? executorThreads : urls.length * poolSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-shard-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("member shards initialized. shards = {}, executor threads = {}", urls.length, threads);
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public Shard shardFor(Long teamId) {
+        return shards.get(indexOf(teamId, shards.size()));
+    }
+
+    //snowflake id 는 하위 비트가 sequence 라 그대로 나머지를 내면 한쪽으로 몰리므로 섞어서 나눈다
+    static int indexOf(Long teamId, int shardCount) {
+        if (teamId == null) {
+            return 0;
+        }
+        long hash = teamId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash ^ (hash >>> 32)), shardCount);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        shards.forEach(shard -> shard.dataSource.close());
+    }
+
+    private static HikariDataSource dataSource(int index, String url, String username, String password, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("member-shard-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        new ResourceDatabasePopulator(new ClassPathResource("shard/schema.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    @Getter
+    public static class Shard {
+        private final int index;
+        private final HikariDataSource dataSource;
+        //스프링 트랜잭션 없이 쿼리마다 커넥션을 받아 자동 커밋으로 실행한다
+        private final SQLQueryFactory queryFactory;
+
+        Shard(int index, HikariDataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+            com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+            configuration.setExceptionTranslator(new SpringExceptionTranslator());
+            this.queryFactory = new SQLQueryFactory(configuration, dataSource);
+        }
+    }
+}
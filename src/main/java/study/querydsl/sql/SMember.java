@@ -0,0 +1,77 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * SMember is a Querydsl query type for MEMBER
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = -1735129087L;
+
+    public static final SMember member = new SMember("member");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final DateTimePath<java.sql.Timestamp> createDate = createDateTime("createDate", java.sql.Timestamp.class);
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final StringPath memberRole = createString("memberRole");
+
+    public final StringPath normalizedUsername = createString("normalizedUsername");
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final DateTimePath<java.sql.Timestamp> updateDate = createDateTime("updateDate", java.sql.Timestamp.class);
+
+    public final StringPath username = createString("username");
+
+    public final PrimaryKey<SMember> constraint8 = createPrimaryKey(memberId);
+
+    public final ForeignKey<STeam> memberTeamFk = createForeignKey(teamId, "TEAM_ID");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(String variable, String schema, String table) {
+        super(SMember.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(createDate, ColumnMetadata.named("CREATE_DATE").withIndex(2).ofType(Types.TIMESTAMP).withSize(26).withDigits(6));
+        addMetadata(updateDate, ColumnMetadata.named("UPDATE_DATE").withIndex(3).ofType(Types.TIMESTAMP).withSize(26).withDigits(6));
+        addMetadata(age, ColumnMetadata.named("AGE").withIndex(4).ofType(Types.INTEGER).withSize(32).notNull());
+        addMetadata(memberRole, ColumnMetadata.named("MEMBER_ROLE").withIndex(5).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(normalizedUsername, ColumnMetadata.named("NORMALIZED_USERNAME").withIndex(6).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(username, ColumnMetadata.named("USERNAME").withIndex(7).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(8).ofType(Types.BIGINT).withSize(64));
+    }
+
+}
@@ -0,0 +1,77 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * STeam is a Querydsl query type for TEAM
+ */
+public class STeam extends RelationalPathBase<STeam> {
+
+    private static final long serialVersionUID = 1021340623L;
+
+    public static final STeam team = new STeam("team");
+
+    public final NumberPath<Integer> ageMax = createNumber("ageMax", Integer.class);
+
+    public final NumberPath<Integer> ageMin = createNumber("ageMin", Integer.class);
+
+    public final NumberPath<Long> ageSum = createNumber("ageSum", Long.class);
+
+    public final DateTimePath<java.sql.Timestamp> createDate = createDateTime("createDate", java.sql.Timestamp.class);
+
+    public final NumberPath<Long> memberCount = createNumber("memberCount", Long.class);
+
+    public final StringPath name = createString("name");
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final DateTimePath<java.sql.Timestamp> updateDate = createDateTime("updateDate", java.sql.Timestamp.class);
+
+    public final PrimaryKey<STeam> constraint2 = createPrimaryKey(teamId);
+
+    public final ForeignKey<SMember> _memberTeamFk = createInvForeignKey(teamId, "TEAM_ID");
+
+    public STeam(String variable) {
+        super(STeam.class, forVariable(variable), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(String variable, String schema, String table) {
+        super(STeam.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public STeam(Path<? extends STeam> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(PathMetadata metadata) {
+        super(STeam.class, metadata, "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(1).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(createDate, ColumnMetadata.named("CREATE_DATE").withIndex(2).ofType(Types.TIMESTAMP).withSize(26).withDigits(6));
+        addMetadata(updateDate, ColumnMetadata.named("UPDATE_DATE").withIndex(3).ofType(Types.TIMESTAMP).withSize(26).withDigits(6));
+        addMetadata(ageMax, ColumnMetadata.named("AGE_MAX").withIndex(4).ofType(Types.INTEGER).withSize(32));
+        addMetadata(ageMin, ColumnMetadata.named("AGE_MIN").withIndex(5).ofType(Types.INTEGER).withSize(32));
+        addMetadata(ageSum, ColumnMetadata.named("AGE_SUM").withIndex(6).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(memberCount, ColumnMetadata.named("MEMBER_COUNT").withIndex(7).ofType(Types.BIGINT).withSize(64).notNull());
+        addMetadata(name, ColumnMetadata.named("NAME").withIndex(8).ofType(Types.VARCHAR).withSize(255));
+    }
+
+}
@@ -0,0 +1,28 @@
+-- 샤드마다 만드는 member, team 테이블. 컬럼은 SMember, STeam 과 같다
+-- team 은 모든 샤드에 복제하고 member 는 team_id 로 나눠 담는다
+create table if not exists team (
+    team_id bigint not null,
+    create_date timestamp(6),
+    update_date timestamp(6),
+    age_max integer,
+    age_min integer,
+    age_sum bigint default 0 not null,
+    member_count bigint default 0 not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table if not exists member (
+    member_id bigint not null,
+    create_date timestamp(6),
+    update_date timestamp(6),
+    age integer not null,
+    member_role varchar(255),
+    normalized_username varchar(255),
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id)
+);
+
+create index if not exists idx_member_team_id on member (team_id, member_id);
+create index if not exists idx_member_normalized_username on member (normalized_username);
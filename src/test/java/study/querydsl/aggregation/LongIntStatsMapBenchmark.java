@@ -0,0 +1,68 @@
+package study.querydsl.aggregation;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+//기본 test 에서는 빠진다. ./gradlew benchmark 로 돌린다
+@Tag("benchmark")
+class LongIntStatsMapBenchmark {
+
+    private static final int ROWS = 500_000;
+    private static final int TEAMS = 1_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    @DisplayName("Tuple + stream groupingBy 대비 속도 비교")
+    void againstTupleStream() {
+        //given
+        List<Tuple> rows = createRows(ROWS);
+
+        //when
+        long primitiveNanos = Long.MAX_VALUE;
+        long boxedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            LongIntStatsMap stats = rows.stream()
+                    .collect(PrimitiveCollectors.intStatsByLongKey(t -> t.get(team.id), t -> t.get(member.age)));
+            primitiveNanos = Math.min(primitiveNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Map<Long, List<Integer>> agesByTeam = rows.stream()
+                    .collect(Collectors.groupingBy(t -> t.get(team.id), Collectors.mapping(t -> t.get(member.age), Collectors.toList())));
+            Map<Long, IntSummaryStatistics> boxed = new HashMap<>();
+            agesByTeam.forEach((teamId, ages) -> boxed.put(teamId, ages.stream().mapToInt(Integer::intValue).summaryStatistics()));
+            boxedNanos = Math.min(boxedNanos, System.nanoTime() - start);
+
+            assertThat(stats.size()).isEqualTo(boxed.size());
+        }
+
+        //then
+        System.out.println("LongIntStatsMap = " + primitiveNanos / 1_000 + "us, Tuple + groupingBy = " + boxedNanos / 1_000 + "us");
+    }
+
+    private List<Tuple> createRows(int count) {
+        QTuple projection = Projections.tuple(team.id, member.age);
+        Random random = new Random(42);
+        List<Tuple> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(projection.newInstance((long) random.nextInt(TEAMS), random.nextInt(100)));
+        }
+        return rows;
+    }
+}
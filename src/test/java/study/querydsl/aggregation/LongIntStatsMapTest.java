@@ -0,0 +1,74 @@
+package study.querydsl.aggregation;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+class LongIntStatsMapTest {
+
+    private static final int TEAMS = 1_000;
+
+    @Test
+    @DisplayName("groupingBy + summarizingInt 와 같은 결과")
+    void sameAsStreamGrouping() {
+        //given
+        List<Tuple> rows = createRows(10_000);
+
+        //when
+        LongIntStatsMap stats = rows.stream()
+                .collect(PrimitiveCollectors.intStatsByLongKey(t -> t.get(team.id), t -> t.get(member.age)));
+        Map<Long, IntSummaryStatistics> expected = rows.stream()
+                .collect(Collectors.groupingBy(t -> t.get(team.id), Collectors.summarizingInt(t -> t.get(member.age))));
+
+        //then
+        assertThat(stats.size()).isEqualTo(expected.size());
+        expected.forEach((teamId, summary) -> {
+            assertThat(stats.count(teamId)).isEqualTo(summary.getCount());
+            assertThat(stats.sum(teamId)).isEqualTo(summary.getSum());
+            assertThat(stats.min(teamId)).isEqualTo(summary.getMin());
+            assertThat(stats.max(teamId)).isEqualTo(summary.getMax());
+            assertThat(stats.average(teamId)).isEqualTo(summary.getAverage());
+        });
+    }
+
+    @Test
+    @DisplayName("병렬 스트림에서도 merge 로 합쳐진다")
+    void parallelMerge() {
+        //given
+        List<Tuple> rows = createRows(100_000);
+
+        //when
+        LongIntStatsMap stats = rows.parallelStream()
+                .collect(PrimitiveCollectors.intStatsByLongKey(t -> t.get(team.id), t -> t.get(member.age)));
+
+        //then
+        long total = 0;
+        for (long teamId : stats.keys()) {
+            total += stats.count(teamId);
+        }
+        assertThat(total).isEqualTo(100_000);
+    }
+
+    private List<Tuple> createRows(int count) {
+        QTuple projection = Projections.tuple(team.id, member.age);
+        Random random = new Random(42);
+        List<Tuple> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(projection.newInstance((long) random.nextInt(TEAMS), random.nextInt(100)));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberAnalyticsService memberAnalyticsService;
+
+    Team teamA;
+
+    @BeforeEach
+    void setEntity() {
+        teamA = new Team("TeamA");
+        em.persist(teamA);
+        Team teamB = new Team("TeamB");
+        em.persist(teamB);
+
+        for (int i = 1; i <= 100; i++) {
+            Member member = Member.createMember("member_" + i, i, i <= 40 ? teamA : teamB);
+            member.setMemberRole(i % 10 == 0 ? MemberRole.ADMIN : MemberRole.USER);
+            memberRepository.save(member);
+        }
+        em.flush();
+        em.clear();
+
+        memberAnalyticsService.refresh();
+    }
+
+    @Test
+    @DisplayName("나이 평균, 백분위, 히스토그램")
+    void ageDistribution() {
+        //given
+        MemberAnalyticsCond cond = new MemberAnalyticsCond();
+
+        //when
+        long[] histogram = memberAnalyticsService.ageHistogram(cond, 10);
+
+        //then
+        assertThat(memberAnalyticsService.count(cond)).isEqualTo(100);
+        assertThat(memberAnalyticsService.averageAge(cond)).isEqualTo(50.5);
+        assertThat(memberAnalyticsService.agePercentile(cond, 50)).isEqualTo(50);
+        assertThat(memberAnalyticsService.agePercentile(cond, 99)).isEqualTo(99);
+        assertThat(histogram).hasSize(11);
+        assertThat(histogram[0]).isEqualTo(9);
+        assertThat(histogram[5]).isEqualTo(10);
+        assertThat(histogram[10]).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("팀, 역할 조건으로 걸러서 집계")
+    void filteredAggregation() {
+        //given
+        MemberAnalyticsCond cond = new MemberAnalyticsCond();
+        cond.setTeamId(teamA.getId());
+        cond.setMemberRole(MemberRole.ADMIN);
+
+        //when
+        double avg = memberAnalyticsService.averageAge(cond);
+
+        //then
+        assertThat(memberAnalyticsService.count(cond)).isEqualTo(4);
+        assertThat(avg).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("팀별 요약")
+    void summarizeByTeam() {
+        //when
+        List<TeamAgeSummary> summaries = memberAnalyticsService.summarizeByTeam(new MemberAnalyticsCond());
+
+        //then
+        assertThat(summaries).hasSize(2);
+        assertThat(summaries)
+                .extracting("memberCount")
+                .containsExactlyInAnyOrder(40L, 60L);
+        assertThat(summaries)
+                .extracting("ageMax")
+                .containsExactlyInAnyOrder(40, 100);
+    }
+}
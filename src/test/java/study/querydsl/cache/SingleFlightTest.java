@@ -0,0 +1,139 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    @DisplayName("동시에 들어온 같은 키 호출은 한 번만 실행하고 결과를 공유한다")
+    void coalesce() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(5_000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        //when
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("teamA", 0, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return "result";
+            })));
+        }
+        //모든 호출이 진행 중인 실행에 합류할 때까지 기다린 뒤 풀어준다
+        while (singleFlight.stats().getCalls() < CALLERS) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        //then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        executor.shutdown();
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.stats().getCoalesced()).isEqualTo(CALLERS - 1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("실행이 끝난 뒤나 generation 이 다르면 다시 실행한다")
+    void noCachingAcrossGenerations() {
+        //given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(5_000);
+        AtomicInteger executions = new AtomicInteger();
+
+        //when
+        singleFlight.execute("teamA", 0, executions::incrementAndGet);
+        singleFlight.execute("teamA", 0, executions::incrementAndGet);
+        singleFlight.execute("teamA", 1, executions::incrementAndGet);
+
+        //then
+        assertThat(executions.get()).isEqualTo(3);
+        assertThat(singleFlight.stats().getCoalesced()).isZero();
+    }
+
+    @Test
+    @DisplayName("실행이 실패하면 합류한 호출도 같은 예외를 받는다")
+    void shareFailure() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<String> leader = executor.submit(() -> singleFlight.execute("teamA", 0, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("teamA", 0, () -> "unused"));
+        while (singleFlight.stats().getCalls() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        //then
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("boom");
+        executor.shutdown();
+        assertThat(singleFlight.stats().getCoalesced()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("진행 중인 실행이 대기 시간을 넘기면 합류한 호출은 직접 실행한다")
+    void fallBackAfterJoinTimeout() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> singleFlight.execute("teamA", 0, () -> {
+            started.countDown();
+            await(release);
+            return "slow";
+        }));
+        started.await();
+
+        //when
+        String result = singleFlight.execute("teamA", 0, () -> "direct");
+
+        //then
+        assertThat(result).isEqualTo("direct");
+        assertThat(singleFlight.stats().getTimedOut()).isEqualTo(1);
+        assertThat(singleFlight.stats().getCoalesced()).isZero();
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
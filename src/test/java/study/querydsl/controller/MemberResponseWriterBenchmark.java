@@ -0,0 +1,98 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//기본 test 에서는 빠진다. ./gradlew benchmark 로 돌린다
+@Tag("benchmark")
+class MemberResponseWriterBenchmark {
+
+    private static final int ROUNDS = 200;
+
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+    MemberResponseWriter memberResponseWriter = new MemberResponseWriter(objectMapper);
+    HttpHeaders jsonHeaders = new HttpHeaders();
+
+    @Test
+    @DisplayName("PageImpl 직렬화 대비 바이트, 시간 비교")
+    void compareWithPageImpl() throws Exception {
+        //given
+        Page<MemberTeamDto> page = createPage(100);
+        ObjectMapper plainMapper = new ObjectMapper();
+
+        //when
+        long pageImplBytes = plainMapper.writeValueAsBytes(page).length;
+        long compactBytes = memberResponseWriter.write(PageResponse.of(page), jsonHeaders).getBody().length;
+
+        long pageImplNanos = Long.MAX_VALUE;
+        long compactNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            plainMapper.writeValueAsBytes(page);
+            pageImplNanos = Math.min(pageImplNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            memberResponseWriter.write(PageResponse.of(page), jsonHeaders);
+            compactNanos = Math.min(compactNanos, System.nanoTime() - start);
+        }
+
+        //then
+        System.out.println("PageImpl = " + pageImplBytes + " bytes, " + pageImplNanos / 1_000 + "us");
+        System.out.println("PageResponse + ObjectWriter = " + compactBytes + " bytes, " + compactNanos / 1_000 + "us");
+    }
+
+    @Test
+    @DisplayName("10k 행 포맷별 바이트, 직렬화 시간 비교")
+    void compareFormats() {
+        //given
+        List<MemberTeamDto> members = createPage(10_000).getContent();
+        HttpHeaders[] headers = {
+                new HttpHeaders(), accept("application/x-jackson-smile"), accept("application/cbor"), accept("application/x-protobuf")
+        };
+        String[] names = {"json", "smile", "cbor", "protobuf"};
+
+        //when
+        long[] bytes = new long[headers.length];
+        long[] nanos = new long[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            bytes[i] = memberResponseWriter.write(members, headers[i]).getBody().length;
+            nanos[i] = Long.MAX_VALUE;
+            for (int round = 0; round < 20; round++) {
+                long start = System.nanoTime();
+                memberResponseWriter.write(members, headers[i]);
+                nanos[i] = Math.min(nanos[i], System.nanoTime() - start);
+            }
+        }
+
+        //then
+        for (int i = 0; i < headers.length; i++) {
+            System.out.println(names[i] + " = " + bytes[i] + " bytes, " + nanos[i] / 1_000 + "us / 10k rows");
+        }
+    }
+
+    private HttpHeaders accept(String accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        return headers;
+    }
+
+    private Page<MemberTeamDto> createPage(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) i % 2, "team" + i % 2));
+        }
+        return new PageImpl<>(content, PageRequest.of(2, size), 1000);
+    }
+}
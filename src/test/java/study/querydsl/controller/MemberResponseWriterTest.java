@@ -0,0 +1,189 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberResponseWriterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+    MemberResponseWriter memberResponseWriter = new MemberResponseWriter(objectMapper);
+
+    @Test
+    @DisplayName("압축된 페이지 응답은 content 와 페이지 정보만 담는다")
+    void compactEnvelope() throws Exception {
+        //given
+        Page<MemberTeamDto> page = createPage(20);
+
+        //when
+        byte[] body = memberResponseWriter.write(PageResponse.of(page), new HttpHeaders()).getBody();
+        JsonNode json = objectMapper.readTree(body);
+
+        //then
+        assertThat(json.get("content")).hasSize(20);
+        assertThat(json.get("content").get(0).get("username").asText()).isEqualTo("member0");
+        assertThat(json.get("totalElements").asLong()).isEqualTo(1000);
+        assertThat(json.get("page").asInt()).isEqualTo(2);
+        assertThat(json.has("pageable")).isFalse();
+        assertThat(json.has("sort")).isFalse();
+    }
+
+    @Test
+    @DisplayName("PageImpl 직렬화보다 바이트가 적다")
+    void smallerThanPageImpl() throws Exception {
+        //given
+        Page<MemberTeamDto> page = createPage(100);
+
+        //when
+        long pageImplBytes = new ObjectMapper().writeValueAsBytes(page).length;
+        long compactBytes = memberResponseWriter.write(PageResponse.of(page), new HttpHeaders()).getBody().length;
+
+        //then
+        assertThat(compactBytes).isLessThan(pageImplBytes);
+    }
+
+    @Test
+    @DisplayName("Accept 헤더로 응답 포맷을 고른다")
+    void negotiateFormat() throws Exception {
+        //given
+        List<MemberTeamDto> members = createPage(3).getContent();
+
+        //when
+        ResponseEntity<byte[]> json = memberResponseWriter.write(members, accept("text/html, */*"));
+        ResponseEntity<byte[]> smile = memberResponseWriter.write(members, accept("application/x-jackson-smile"));
+        ResponseEntity<byte[]> cbor = memberResponseWriter.write(members, accept("application/json;q=0.5, application/cbor"));
+        ResponseEntity<byte[]> protobuf = memberResponseWriter.write(members, accept("application/x-protobuf"));
+
+        //then
+        assertThat(json.getHeaders().getContentType()).isEqualTo(MemberResponseFormat.JSON.getMediaType());
+        assertThat(objectMapper.readTree(json.getBody())).hasSize(3);
+        assertThat(smile.getHeaders().getContentType()).isEqualTo(MemberResponseFormat.SMILE.getMediaType());
+        assertThat(new SmileMapper().readTree(smile.getBody()).get(1).get("username").asText()).isEqualTo("member1");
+        assertThat(cbor.getHeaders().getContentType()).isEqualTo(MemberResponseFormat.CBOR.getMediaType());
+        assertThat(new CBORMapper().readTree(cbor.getBody()).get(2).get("teamName").asText()).isEqualTo("team0");
+        assertThat(protobuf.getHeaders().getContentType()).isEqualTo(MemberResponseFormat.PROTOBUF.getMediaType());
+        assertThat(protobuf.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+        assertThat(json.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    }
+
+    @Test
+    @DisplayName("protobuf 응답은 길이 접두어가 붙은 MemberTeam 메시지 스트림이다")
+    void protobufStream() {
+        //given
+        Page<MemberTeamDto> page = createPage(3);
+
+        //when
+        byte[] body = memberResponseWriter.write(PageResponse.of(page), accept("application/x-protobuf")).getBody();
+
+        //then
+        ProtoReader reader = new ProtoReader(body);
+        ProtoReader pageInfo = reader.message();
+        assertThat(pageInfo.field()).isEqualTo(1);
+        assertThat(pageInfo.varint()).isEqualTo(2);
+        assertThat(pageInfo.field()).isEqualTo(2);
+        assertThat(pageInfo.varint()).isEqualTo(3);
+        assertThat(pageInfo.field()).isEqualTo(3);
+        assertThat(pageInfo.varint()).isEqualTo(1000);
+
+        //memberId 0 은 기본값이라 생략된다
+        ProtoReader first = reader.message();
+        assertThat(first.field()).isEqualTo(2);
+        assertThat(first.string()).isEqualTo("member0");
+
+        ProtoReader second = reader.message();
+        assertThat(second.field()).isEqualTo(1);
+        assertThat(second.varint()).isEqualTo(1);
+        assertThat(second.field()).isEqualTo(2);
+        assertThat(second.string()).isEqualTo("member1");
+        assertThat(second.field()).isEqualTo(3);
+        assertThat(second.varint()).isEqualTo(1);
+        assertThat(second.field()).isEqualTo(4);
+        assertThat(second.varint()).isEqualTo(1);
+        assertThat(second.field()).isEqualTo(5);
+        assertThat(second.string()).isEqualTo("team1");
+
+        reader.message();
+        assertThat(reader.hasRemaining()).isFalse();
+    }
+
+    private HttpHeaders accept(String accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        return headers;
+    }
+
+    private Page<MemberTeamDto> createPage(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) i % 2, "team" + i % 2));
+        }
+        return new PageImpl<>(content, PageRequest.of(2, size), 1000);
+    }
+
+    //테스트 검증용 protobuf 와이어 포맷 리더
+    static class ProtoReader {
+        private final byte[] buf;
+        private int pos;
+        private final int limit;
+
+        ProtoReader(byte[] buf) {
+            this(buf, 0, buf.length);
+        }
+
+        private ProtoReader(byte[] buf, int pos, int limit) {
+            this.buf = buf;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return pos < limit;
+        }
+
+        int field() {
+            return (int) (varint() >>> 3);
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String string() {
+            int length = (int) varint();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        ProtoReader message() {
+            int length = (int) varint();
+            ProtoReader message = new ProtoReader(buf, pos, pos + length);
+            pos += length;
+            return message;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberDataVersion;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.service.MemberService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberSearchETagTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberDataVersion memberDataVersion;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        memberService.join(Member.createMember("member1", 10, teamA));
+        memberService.join(Member.createMember("member2", 20, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("데이터 버전이 같으면 If-None-Match 에 304 로 응답한다")
+    void notModified() throws Exception {
+        //given
+        String eTag = mockMvc.perform(get("/v1/members").param("teamName", "TeamA"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when then
+        mockMvc.perform(get("/v1/members").param("teamName", "TeamA").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    @DisplayName("조건, 페이지, 응답 포맷이 다르면 ETag 도 다르다")
+    void eTagPerCondition() throws Exception {
+        //when
+        String teamA = eTag("/v2/members?teamName=TeamA&page=0&size=10", "application/json");
+        String teamB = eTag("/v2/members?teamName=TeamB&page=0&size=10", "application/json");
+        String page1 = eTag("/v2/members?teamName=TeamA&page=1&size=10", "application/json");
+        String smile = eTag("/v2/members?teamName=TeamA&page=0&size=10", "application/x-jackson-smile");
+
+        //then
+        assertThat(teamA).startsWith("W/\"");
+        assertThat(teamA).isNotEqualTo(teamB).isNotEqualTo(page1).isNotEqualTo(smile);
+        assertThat(eTag("/v2/members?teamName=TeamA&page=0&size=10", "application/json")).isEqualTo(teamA);
+    }
+
+    @Test
+    @DisplayName("회원이 바뀌어 데이터 버전이 올라가면 이전 ETag 로는 다시 조회한다")
+    void modifiedAfterChange() throws Exception {
+        //given
+        String eTag = eTag("/v1/members?teamName=TeamA", "application/json");
+        long before = memberDataVersion.current();
+
+        //when
+        memberService.join(Member.createMember("member3", 30, null));
+        em.flush();
+
+        //then
+        mockMvc.perform(get("/v1/members").param("teamName", "TeamA").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        assertThat(memberDataVersion.current()).isGreaterThan(before);
+        assertThat(eTag("/v1/members?teamName=TeamA", "application/json")).isNotEqualTo(eTag);
+    }
+
+    @Test
+    @DisplayName("롤백된 변경은 버전을 올리지 않는다")
+    void rollbackKeepsVersion() {
+        //given
+        TestTransaction.end();
+        long before = memberDataVersion.current();
+
+        //when
+        TestTransaction.start();
+        memberService.join(Member.createMember("member3", 30, null));
+        em.flush();
+        TestTransaction.end();
+
+        //then
+        assertThat(memberDataVersion.current()).isEqualTo(before);
+    }
+
+    private String eTag(String url, String accept) throws Exception {
+        return mockMvc.perform(get(url).header(HttpHeaders.ACCEPT, accept))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberEqualityTest {
+
+    private static final int MEMBER_COUNT = 2_000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        Team teamB = new Team("TeamB");
+        em.persist(teamB);
+
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+            memberRepository.save(Member.createMember("member_" + i, i % 100, selectedTeam));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("HashSet, HashMap 에 담아도 팀 프록시가 초기화되지 않는다")
+    void collectionsDoNotInitializeTeamProxy() {
+        //given
+        List<Member> members = memberRepository.findAll();
+
+        //when
+        Set<Member> memberSet = new HashSet<>(members);
+        Map<Member, Integer> ageByMember = new HashMap<>();
+        for (Member member : members) {
+            ageByMember.put(member, member.getAge());
+        }
+        Set<Team> teamSet = new HashSet<>();
+        for (Member member : members) {
+            teamSet.add(member.getTeam());
+        }
+
+        //then
+        assertThat(memberSet).hasSize(MEMBER_COUNT);
+        assertThat(ageByMember).hasSize(MEMBER_COUNT);
+        assertThat(teamSet).hasSize(2);
+        for (Team team : teamSet) {
+            assertThat(emf.getPersistenceUnitUtil().isLoaded(team)).as("팀 프록시 미초기화").isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("hashCode 가 아이디로 흩어져 해시 버킷 하나에 몰리지 않는다")
+    void hashCodesAreSpreadById() {
+        //given
+        List<Member> members = memberRepository.findAll();
+
+        //when
+        Set<Integer> hashCodes = new HashSet<>();
+        for (Member member : members) {
+            hashCodes.add(member.hashCode());
+        }
+
+        //then
+        assertThat(hashCodes).hasSize(MEMBER_COUNT);
+    }
+
+    @Test
+    @DisplayName("id 가 없는 엔티티는 자기 자신과만 동등하다")
+    void equalsWithoutId() {
+        //given
+        Member first = new Member();
+        Member second = new Member();
+
+        //when
+        Set<Member> members = new HashSet<>();
+        members.add(first);
+        members.add(second);
+
+        //then
+        assertThat(first).isEqualTo(first).isNotEqualTo(second);
+        assertThat(members).hasSize(2).contains(first, second);
+    }
+
+    @Test
+    @DisplayName("같은 id 로 따로 읽은 엔티티는 동등하고 해시도 같다")
+    void equalsById() {
+        //given
+        Member member = memberRepository.findAll().get(0);
+        em.clear();
+
+        //when
+        Member reloaded = em.find(Member.class, member.getId());
+
+        //then
+        assertThat(reloaded).isNotSameAs(member).isEqualTo(member);
+        assertThat(reloaded.hashCode()).isEqualTo(member.hashCode());
+    }
+
+    @Test
+    @DisplayName("프록시와 실제 엔티티는 같은 아이디면 동등하다")
+    void proxyEqualsEntity() {
+        //given
+        Team proxy = memberRepository.findAll().get(0).getTeam();
+        em.clear();
+
+        //when
+        Team loaded = em.find(Team.class, proxy.getId());
+
+        //then
+        assertThat(proxy).isEqualTo(loaded);
+        assertThat(loaded).isEqualTo(proxy);
+        assertThat(emf.getPersistenceUnitUtil().isLoaded(proxy)).isFalse();
+    }
+}
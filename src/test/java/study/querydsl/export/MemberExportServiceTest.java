@@ -0,0 +1,139 @@
+package study.querydsl.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.service.MemberBulkService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.domain.QMember.member;
+
+//작업 스레드가 커밋된 데이터를 읽어야 하므로 테스트 트랜잭션 없이 넣고 지운다. 묶음 크기를 작게 해 keyset 을 여러 번 돈다
+@SpringBootTest(properties = "member.export.chunk-size=7")
+@AutoConfigureMockMvc
+class MemberExportServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    Long teamId;
+
+    @BeforeEach
+    void setEntity() {
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("ExportTeam");
+            em.persist(team);
+            for (int i = 0; i < 30; i++) {
+                em.persist(Member.createMember("export" + i, i, team));
+            }
+            em.persist(Member.createMember("export,\"quoted\"", 99, team));
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        memberBulkService.delete(member.username.startsWith("export"));
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+    }
+
+    @Test
+    @DisplayName("CSV 내보내기는 keyset 묶음을 이어 써서 조건에 맞는 회원 전체를 담는다")
+    void exportCsv() throws Exception {
+        //given
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamName("ExportTeam");
+
+        //when
+        MemberExportJob job = memberExportService.submit(cond, MemberExportFormat.CSV);
+        awaitFinished(job);
+
+        //then
+        assertThat(job.getStatus()).isEqualTo(MemberExportJob.Status.DONE);
+        assertThat(job.toStatus().getRows()).isEqualTo(31);
+        List<String> lines = Files.readAllLines(job.getFile(), StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(32);
+        assertThat(lines.get(0)).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines).anyMatch(line -> line.contains(",\"export,\"\"quoted\"\"\",99,"));
+        assertThat(job.toStatus().getBytes()).isEqualTo(Files.size(job.getFile()));
+    }
+
+    @Test
+    @DisplayName("끝난 작업의 파일을 그대로 내려받고, 지우면 더 이상 찾을 수 없다")
+    void downloadAndRemove() throws Exception {
+        //given
+        String location = mockMvc.perform(post("/members/exports")
+                        .param("format", "ndjson")
+                        .param("teamName", "ExportTeam")
+                        .param("ageLoe", "9"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+        String jobId = location.substring(location.lastIndexOf('/') + 1);
+        MemberExportJob job = memberExportService.find(jobId).orElseThrow();
+        awaitFinished(job);
+
+        //when
+        byte[] body = mockMvc.perform(get(location + "/file"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //then
+        assertThat(body).isEqualTo(Files.readAllBytes(job.getFile()));
+        String[] lines = new String(body, StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(10);
+        assertThat(Arrays.stream(lines)).allMatch(line -> line.startsWith("{") && line.contains("\"teamName\":\"ExportTeam\""));
+
+        mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+        mockMvc.perform(get(location)).andExpect(status().isNotFound());
+        assertThat(Files.exists(job.getFile())).isFalse();
+    }
+
+    @Test
+    @DisplayName("지원하지 않는 형식은 400 으로 거절한다")
+    void unsupportedFormat() throws Exception {
+        mockMvc.perform(post("/members/exports").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void awaitFinished(MemberExportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//기본 test 에서는 빠진다. ./gradlew benchmark 로 돌린다
+@Tag("benchmark")
+@SpringBootTest
+class SnowflakeIdGeneratorBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("snowflake 발급과 DB 시퀀스 호출 처리량 비교")
+    void benchmarkAgainstSequence() throws Exception {
+        //given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.DEFAULT_EPOCH, 0, 10, 12);
+        //시퀀스 전략(@GeneratedValue 기본값)이 id 하나마다 부르는 쿼리
+        Callable<Long> sequence = () -> jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        Callable<Long> snowflake = generator::nextId;
+        measure(sequence);
+        measure(snowflake);
+
+        //when
+        long sequenceNanos = measure(sequence);
+        long snowflakeNanos = measure(snowflake);
+
+        //then
+        int total = THREADS * IDS_PER_THREAD;
+        System.out.println("sequence  : " + sequenceNanos / 1_000_000 + "ms, " + total * 1_000_000_000L / sequenceNanos + " ids/s");
+        System.out.println("snowflake : " + snowflakeNanos / 1_000_000 + "ms, " + total * 1_000_000_000L / snowflakeNanos + " ids/s");
+    }
+
+    private long measure(Callable<Long> nextId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        nextId.call();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
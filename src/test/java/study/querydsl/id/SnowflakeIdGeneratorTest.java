@@ -0,0 +1,148 @@
+package study.querydsl.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1_640_995_200_000L;
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 발급해도 id 가 겹치지 않고 스레드마다 증가한다")
+    void uniqueUnderConcurrency() throws Exception {
+        //given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 7, 10, 12);
+        int threads = 16;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                long[] ids = new long[perThread];
+                for (int j = 0; j < perThread; j++) {
+                    ids[j] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        //then
+        Set<Long> all = new HashSet<>(threads * perThread * 2);
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int j = 0; j < ids.length; j++) {
+                assertThat(all.add(ids[j])).isTrue();
+                if (j > 0) {
+                    assertThat(ids[j]).isGreaterThan(ids[j - 1]);
+                }
+                assertThat(generator.nodeIdOf(ids[j])).isEqualTo(7);
+            }
+        }
+        executor.shutdown();
+        assertThat(all).hasSize(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("같은 ms 에 sequence 가 다 차면 다음 ms 를 앞당겨 쓴다")
+    void sequenceOverflow() {
+        //given
+        long now = EPOCH + 1_000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1, 4, 2, 10, EPOCH, () -> now);
+
+        //when
+        long[] ids = new long[10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId();
+        }
+
+        //then
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+        assertThat(generator.timestampOf(ids[0])).isEqualTo(now);
+        assertThat(generator.timestampOf(ids[4])).isEqualTo(now + 1);
+        assertThat(generator.timestampOf(ids[9])).isEqualTo(now + 2);
+    }
+
+    @Test
+    @DisplayName("시계가 max-lead 안에서 뒤로 가면 id 는 줄어들지 않고 계속 발급된다")
+    void clockMovesBackwards() {
+        //given
+        AtomicLong clock = new AtomicLong(EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 3, 10, 12, 10_000, EPOCH, clock::get);
+        long before = generator.nextId();
+
+        //when
+        clock.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        //then
+        assertThat(after).isGreaterThan(before);
+        assertThat(generator.nodeIdOf(after)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("시계보다 max-lead 넘게 앞서야 하면 시계가 따라올 때까지 기다린다")
+    void waitForClockBeyondMaxLead() throws Exception {
+        //given
+        AtomicLong clock = new AtomicLong(EPOCH + 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1, 4, 2, 1, EPOCH, clock::get);
+        for (int i = 0; i < 8; i++) {
+            generator.nextId();
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //when
+        Future<Long> blocked = executor.submit(generator::nextId);
+        Thread.sleep(50);
+        boolean doneBeforeClockMoves = blocked.isDone();
+        clock.incrementAndGet();
+        long id = blocked.get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        assertThat(doneBeforeClockMoves).isFalse();
+        assertThat(generator.timestampOf(id)).isEqualTo(EPOCH + 1_002);
+    }
+
+    @Test
+    @DisplayName("재기동한 발급기는 이전 프로세스가 냈을 수 있는 시각 다음부터 발급한다")
+    void startAfterPreviousProcess() {
+        //given
+        long now = EPOCH + 1_000;
+        long notBefore = now + 500;
+
+        //when
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1, 10, 12, 1_000, notBefore, () -> now);
+        long id = generator.nextId();
+
+        //then
+        assertThat(generator.timestampOf(id)).isEqualTo(notBefore + 1);
+    }
+
+    @Test
+    @DisplayName("node id 가 비트 수를 넘으면 만들 수 없다")
+    void invalidNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(EPOCH, 1024, 10, 12))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(EPOCH, 0, 20, 12))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
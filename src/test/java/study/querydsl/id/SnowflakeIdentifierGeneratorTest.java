@@ -0,0 +1,66 @@
+package study.querydsl.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class SnowflakeIdentifierGeneratorTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    @DisplayName("Member, Team 은 persist 시점에 시퀀스 조회 없이 snowflake id 를 받는다")
+    void persist() {
+        //given
+        Team team = new Team("snowflakeTeam");
+        Member member1 = Member.createMember("snowflake1", 10, team);
+        Member member2 = Member.createMember("snowflake2", 20, team);
+        assertThat(member1.getId()).isNull();
+
+        //when
+        em.persist(team);
+        em.persist(member1);
+        em.persist(member2);
+
+        //then
+        assertThat(team.getId()).isNotNull();
+        assertThat(member2.getId()).isGreaterThan(member1.getId());
+        //시각 비트가 들어가므로 시퀀스 값보다 훨씬 크다
+        assertThat(member1.getId()).isGreaterThan(1L << 22);
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, member1.getId()).getUsername()).isEqualTo("snowflake1");
+    }
+
+    @Test
+    @DisplayName("id 가 없으면 save 는 merge 대신 persist 하고, 저장하지 않은 엔티티는 id 를 쓰지 않는다")
+    void saveNewEntity() {
+        //given
+        Member member = Member.createMember("snowflake3", 30, null);
+        Member discarded = Member.createMember("discarded", 0, null);
+
+        //when
+        Member saved = memberRepository.save(member);
+
+        //then
+        assertThat(saved).isSameAs(member);
+        assertThat(saved.getId()).isNotNull();
+        assertThat(discarded.getId()).isNull();
+    }
+}
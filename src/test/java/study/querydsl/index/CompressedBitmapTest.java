@@ -0,0 +1,63 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedBitmapTest {
+
+    @Test
+    @DisplayName("배열 컨테이너와 비트맵 컨테이너를 오가며 추가/삭제")
+    void addAndRemoveAcrossContainers() {
+        //given
+        CompressedBitmap bitmap = new CompressedBitmap();
+
+        //when
+        IntStream.range(0, 10_000).forEach(bitmap::add);
+        IntStream.range(0, 10_000).filter(i -> i % 2 == 0).forEach(bitmap::remove);
+        bitmap.add(1 << 20);
+
+        //then
+        assertThat(bitmap.cardinality()).isEqualTo(5_001);
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(2)).isFalse();
+        assertThat(bitmap.contains(1 << 20)).isTrue();
+    }
+
+    @Test
+    @DisplayName("AND / OR")
+    void andOr() {
+        //given
+        CompressedBitmap multiplesOfTwo = new CompressedBitmap();
+        CompressedBitmap multiplesOfThree = new CompressedBitmap();
+        IntStream.range(0, 100_000).filter(i -> i % 2 == 0).forEach(multiplesOfTwo::add);
+        IntStream.range(0, 100_000).filter(i -> i % 3 == 0).forEach(multiplesOfThree::add);
+
+        //when
+        CompressedBitmap and = multiplesOfTwo.and(multiplesOfThree);
+        CompressedBitmap or = multiplesOfTwo.or(multiplesOfThree);
+
+        //then
+        assertThat(and.cardinality()).isEqualTo(IntStream.range(0, 100_000).filter(i -> i % 6 == 0).count());
+        assertThat(or.cardinality()).isEqualTo(IntStream.range(0, 100_000).filter(i -> i % 2 == 0 || i % 3 == 0).count());
+        assertThat(multiplesOfTwo.cardinality()).isEqualTo(50_000);
+    }
+
+    @Test
+    @DisplayName("offset, limit 으로 오름차순 값을 잘라온다")
+    void slice() {
+        //given
+        CompressedBitmap bitmap = CompressedBitmap.of(5, 70_000, 1, 3, 65_536);
+
+        //when
+        int[] page = bitmap.toArray(1, 3);
+
+        //then
+        assertThat(page).containsExactly(3, 5, 65_536);
+        assertThat(bitmap.toArray(4, 10)).containsExactly(70_000);
+        assertThat(bitmap.toArray(10, 10)).isEmpty();
+    }
+}
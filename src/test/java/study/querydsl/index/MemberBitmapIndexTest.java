@@ -0,0 +1,175 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.bitmap-index.enabled=true")
+@Transactional
+class MemberBitmapIndexTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberBitmapIndex memberBitmapIndex;
+
+    @Autowired
+    MemberBitmapIndexLoader memberBitmapIndexLoader;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        Team teamB = new Team("TeamB");
+        em.persist(teamB);
+
+        for (int i = 0; i < 100; i++) {
+            Member member = Member.createMember("member_" + i, i, i % 2 == 0 ? teamA : teamB);
+            member.setMemberRole(i % 10 == 0 ? MemberRole.ADMIN : MemberRole.USER);
+            memberRepository.save(member);
+        }
+        memberRepository.save(Member.createMember("noTeam", 50, null));
+        em.flush();
+        em.clear();
+
+        //테스트 트랜잭션은 커밋되지 않으므로 같은 트랜잭션에서 직접 재구축한다
+        memberBitmapIndexLoader.rebuild();
+    }
+
+    @Test
+    @DisplayName("비트맵 count 는 SQL 결과와 같다")
+    void countMatchesSql() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName("TeamA");
+        memberSearchCond.setAgeGoe(20);
+        memberSearchCond.setAgeLoe(59);
+        memberSearchCond.setMemberRole(MemberRole.USER);
+
+        //when
+        long indexed = memberBitmapIndex.count(memberSearchCond);
+
+        //then
+        assertThat(indexed).isEqualTo(memberQueryRepository.searchByWhere(memberSearchCond).size());
+        assertThat(memberBitmapIndex.count(new MemberSearchCond())).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("searchPageSimple 은 username 조건이 없으면 인덱스로 페이징한다")
+    void searchPageSimpleUsesIndex() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName("TeamB");
+        memberSearchCond.setAgeLoe(20);
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageSimple(memberSearchCond, PageRequest.of(1, 3));
+
+        //then
+        assertThat(memberBitmapIndex.supports(memberSearchCond)).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(10);
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member_7", "member_9", "member_11");
+    }
+
+    @Test
+    @DisplayName("username 조건은 SQL 로 처리한다")
+    void usernameFallsBackToSql() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setUsername("member_1");
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageSimple(memberSearchCond, PageRequest.of(0, 10));
+
+        //then
+        assertThat(memberBitmapIndex.supports(memberSearchCond)).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("인덱스가 stale 이라 SQL 로 내려가도 같은 페이지가 나온다")
+    void staleIndexPagesLikeSql() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName("TeamB");
+        memberSearchCond.setAgeLoe(20);
+        Page<MemberTeamDto> indexed = memberRepository.searchPageSimple(memberSearchCond, PageRequest.of(1, 3));
+
+        //when
+        memberBitmapIndex.markStale();
+        Page<MemberTeamDto> fallback = memberRepository.searchPageSimple(memberSearchCond, PageRequest.of(1, 3));
+
+        //then
+        assertThat(memberBitmapIndex.supports(memberSearchCond)).isFalse();
+        assertThat(fallback.getContent()).extracting("memberId")
+                .containsExactlyElementsOf(indexed.getContent().stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 커밋된 변경을 쌓지 않는다")
+    void disabledIndexKeepsNothing() {
+        //given
+        MemberBitmapIndex disabled = new MemberBitmapIndex(false);
+
+        //when
+        disabled.putTeam(1L, "TeamA");
+        disabled.putMember(1L, 1L, MemberRole.USER, 10);
+
+        //then
+        assertThat(disabled.count(new MemberSearchCond())).isZero();
+    }
+
+    @Test
+    @DisplayName("지운 순번이 절반을 넘거나 순번이 id 순서를 벗어나면 재구축을 요청한다")
+    void rebuildToReclaimOrdinals() {
+        //given
+        MemberBitmapIndex.Snapshot snapshot = new MemberBitmapIndex.Snapshot();
+        for (long id = 1; id <= 4000; id++) {
+            snapshot.putMember(id, 1L, MemberRole.USER, 10);
+        }
+        MemberBitmapIndex.Snapshot reordered = new MemberBitmapIndex.Snapshot();
+        reordered.putMember(10L, 1L, MemberRole.USER, 10);
+
+        //when
+        for (long id = 1; id <= 1999; id++) {
+            snapshot.removeMember(id);
+        }
+        boolean beforeHalf = snapshot.needsRebuild();
+        for (long id = 2000; id <= 2100; id++) {
+            snapshot.removeMember(id);
+        }
+        reordered.putMember(5L, 1L, MemberRole.USER, 10);
+
+        //then
+        assertThat(beforeHalf).isFalse();
+        assertThat(snapshot.needsRebuild()).isTrue();
+        assertThat(reordered.needsRebuild()).isTrue();
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//기본 test 에서는 빠진다. ./gradlew benchmark 로 돌린다
+@Tag("benchmark")
+class UsernamePrefixIndexBenchmark {
+
+    private static final int MEMBERS = 100_000;
+    private static final int ROUNDS = 10_000;
+
+    @Test
+    @DisplayName("10만 건에서 top-K 조회 평균 지연")
+    void suggestLatency() {
+        //given
+        UsernamePrefixIndex usernamePrefixIndex = new UsernamePrefixIndex();
+        UsernamePrefixIndex.Snapshot snapshot = new UsernamePrefixIndex.Snapshot();
+        for (long i = 0; i < MEMBERS; i++) {
+            snapshot.put(i, "user_" + i);
+        }
+        usernamePrefixIndex.startRebuild();
+        usernamePrefixIndex.finishRebuild(snapshot);
+        for (int i = 0; i < ROUNDS; i++) {
+            usernamePrefixIndex.suggest("user_" + (i % 1000), 10);
+        }
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            usernamePrefixIndex.suggest("user_" + (i % 1000), 10);
+        }
+        long averageNanos = (System.nanoTime() - start) / ROUNDS;
+
+        //then
+        System.out.println("average suggest latency(ns) = " + averageNanos);
+        assertThat(usernamePrefixIndex.suggest("user_9999", 10)).extracting("username")
+                .containsExactly("user_9999", "user_99990", "user_99991", "user_99992", "user_99993",
+                        "user_99994", "user_99995", "user_99996", "user_99997", "user_99998");
+    }
+}
@@ -0,0 +1,138 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.UsernameSuggestion;
+import study.querydsl.outbox.MemberOutboxSequencer;
+import study.querydsl.outbox.MemberOutboxWriter;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class UsernamePrefixIndexTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    UsernamePrefixIndex usernamePrefixIndex;
+
+    @Autowired
+    UsernamePrefixIndexLoader usernamePrefixIndexLoader;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberOutboxWriter memberOutboxWriter;
+
+    //테스트에서는 폴러가 돌지 않으므로 직접 seq 를 매긴다
+    @Autowired
+    MemberOutboxSequencer memberOutboxSequencer;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+
+        for (int i = 0; i < 100; i++) {
+            memberRepository.save(Member.createMember("member_" + i, i, teamA));
+        }
+        memberRepository.save(Member.createMember("Mango", 20, teamA));
+        memberRepository.save(Member.createMember("  mANGO ", 30, null));
+        em.flush();
+        em.clear();
+
+        //테스트 트랜잭션은 커밋되지 않으므로 같은 트랜잭션에서 직접 재구축한다
+        usernamePrefixIndexLoader.rebuild();
+    }
+
+    @Test
+    @DisplayName("접두어로 시작하는 username 을 사전순으로 K 개까지 돌려준다")
+    void suggest() {
+        //when
+        List<UsernameSuggestion> result = usernamePrefixIndex.suggest("member_1", 5);
+
+        //then
+        assertThat(result).extracting("username")
+                .containsExactly("member_1", "member_10", "member_11", "member_12", "member_13");
+    }
+
+    @Test
+    @DisplayName("대소문자와 앞뒤 공백은 무시하고 원래 username 을 돌려준다")
+    void suggestIgnoreCase() {
+        //when
+        List<UsernameSuggestion> result = usernamePrefixIndex.suggest(" MAN", 10);
+
+        //then
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("Mango", "  mANGO ");
+        assertThat(usernamePrefixIndex.suggest("x", 10)).isEmpty();
+        assertThat(usernamePrefixIndex.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("이름 변경과 삭제가 인덱스에 반영된다")
+    void putAndRemove() {
+        //given
+        UsernameSuggestion mango = usernamePrefixIndex.suggest("mango", 1).get(0);
+
+        //when
+        usernamePrefixIndex.put(mango.getMemberId(), "kiwi");
+        usernamePrefixIndex.remove(usernamePrefixIndex.suggest("member_99", 1).get(0).getMemberId());
+
+        //then
+        assertThat(usernamePrefixIndex.suggest("mango", 10)).hasSize(1);
+        assertThat(usernamePrefixIndex.suggest("kiwi", 10)).extracting("memberId").containsExactly(mango.getMemberId());
+        assertThat(usernamePrefixIndex.suggest("member_99", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("재구축 중 들어온 변경은 새 스냅샷에도 남는다")
+    void changesDuringRebuild() {
+        //given
+        usernamePrefixIndex.startRebuild();
+        usernamePrefixIndex.put(-1L, "during_rebuild");
+
+        //when
+        usernamePrefixIndex.finishRebuild(new UsernamePrefixIndex.Snapshot());
+
+        //then
+        assertThat(usernamePrefixIndex.suggest("during", 10)).extracting("memberId").containsExactly(-1L);
+    }
+
+    @Test
+    @DisplayName("리스너를 거치지 않은 변경(다른 노드, 벌크)은 변경 피드를 따라가 반영한다")
+    void followChangeFeed() {
+        //given
+        Long memberId = usernamePrefixIndex.suggest("member_42", 1).get(0).getMemberId();
+        jdbcTemplate.update("update member set username = 'papaya' where member_id = ?", memberId);
+        memberOutboxWriter.appendSavedMembers(List.of(memberId));
+        while (memberOutboxSequencer.assignSequence(1000) > 0) {
+        }
+
+        //when
+        int applied = usernamePrefixIndexLoader.follow();
+
+        //then
+        assertThat(applied).isPositive();
+        assertThat(usernamePrefixIndex.suggest("papaya", 10)).extracting("memberId").containsExactly(memberId);
+        assertThat(usernamePrefixIndex.suggest("member_42", 10)).isEmpty();
+        assertThat(usernamePrefixIndexLoader.follow()).isZero();
+    }
+}
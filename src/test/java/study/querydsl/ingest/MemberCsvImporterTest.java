@@ -0,0 +1,186 @@
+package study.querydsl.ingest;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberImportResult;
+import study.querydsl.service.MemberBulkService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+//묶음마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 적재하고 지운다. 작은 묶음으로 여러 스레드가 돌게 한다
+@SpringBootTest(properties = {
+        "member.import.chunk-bytes=4096",
+        "member.import.batch-size=100",
+        "member.import.queue-capacity=2"
+})
+class MemberCsvImporterTest {
+
+    private static final int ROWS = 5_000;
+    private static final long FIRST_ID = 900_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    MemberCsvImporter memberCsvImporter;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clear() {
+        memberBulkService.delete(member.username.startsWith("import"));
+        jdbcTemplate.update("delete from team where name like 'ImportTeam%'");
+    }
+
+    @Test
+    @DisplayName("CSV 를 병렬로 적재하고 팀명은 한 번씩만 찾아 team_id 로 바꾼다")
+    void importFile() throws IOException {
+        //given
+        Path file = writeCsv(0, true);
+
+        //when
+        MemberImportResult result = memberCsvImporter.importFile(file);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(ROWS);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getTeamCacheMisses()).isEqualTo(5);
+        assertThat(result.getTeamCacheHits()).isEqualTo(ROWS - ROWS / 10 - 5);
+        assertThat(result.getStages()).extracting(MemberImportResult.Stage::getStage).containsExactly("split", "parse", "write");
+        assertThat(result.getStages().get(2).getItems()).isEqualTo(ROWS);
+
+        assertThat(countImported()).isEqualTo(ROWS);
+        assertThat(queryFactory.selectFrom(team).where(team.name.startsWith("ImportTeam")).fetchCount()).isEqualTo(5);
+        //팀 집계도 다시 계산된다
+        Long teamMembers = queryFactory.select(team.memberCount.sum()).from(team).where(team.name.startsWith("ImportTeam")).fetchOne();
+        assertThat(teamMembers).isEqualTo(ROWS - ROWS / 10);
+        //팀은 JPA 로 만들어 outbox 에도 남는다
+        Integer teamSaved = jdbcTemplate.queryForObject("select count(*) from member_outbox where change_type = 'TEAM_SAVED'" +
+                " and aggregate_id in (select team_id from team where name like 'ImportTeam%')", Integer.class);
+        assertThat(teamSaved).isEqualTo(5);
+        assertThat(queryFactory.select(member.normalizedUsername).from(member).where(member.id.eq(FIRST_ID + 7)).fetchOne())
+                .isEqualTo("import7");
+    }
+
+    @Test
+    @DisplayName("같은 member_id 를 다시 적재하면 행을 늘리지 않고 덮어쓴다")
+    void upsert() throws IOException {
+        //given
+        memberCsvImporter.importFile(writeCsv(0, false));
+
+        //when
+        MemberImportResult result = memberCsvImporter.importFile(writeCsv(50, false));
+
+        //then
+        assertThat(result.getRows()).isEqualTo(ROWS);
+        assertThat(countImported()).isEqualTo(ROWS);
+        assertThat(queryFactory.select(member.age).from(member).where(member.id.eq(FIRST_ID + 3)).fetchOne()).isEqualTo(53);
+        assertThat(queryFactory.selectFrom(team).where(team.name.startsWith("ImportTeam")).fetchCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("한 묶음 안에 같은 member_id 가 여러 번 있으면 뒤의 행으로 한 번만 쓴다")
+    void duplicateIdInBatch() throws IOException {
+        //given
+        List<String> lines = new ArrayList<>();
+        lines.add(FIRST_ID + ",import0,10,,ImportTeam0");
+        lines.add((FIRST_ID + 1) + ",import1,11,,");
+        lines.add(FIRST_ID + ",import0,20,ADMIN,ImportTeam1");
+        Path file = Files.write(tempDir.resolve("duplicate.csv"), lines, StandardCharsets.UTF_8);
+
+        //when
+        MemberImportResult result = memberCsvImporter.importFile(file);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(countImported()).isEqualTo(2);
+        assertThat(queryFactory.select(member.age).from(member).where(member.id.eq(FIRST_ID)).fetchOne()).isEqualTo(20);
+        assertThat(queryFactory.select(member.team.name).from(member).where(member.id.eq(FIRST_ID)).fetchOne())
+                .isEqualTo("ImportTeam1");
+    }
+
+    @Test
+    @DisplayName("member_id 가 없는 줄은 다시 적재할 때 같은 회원을 찾을 수 없으므로 버린다")
+    void rejectRowWithoutId() throws IOException {
+        //given
+        List<String> lines = new ArrayList<>();
+        lines.add(FIRST_ID + ",import0,10,,ImportTeam0");
+        lines.add(",import1,11,,ImportTeam0");
+        lines.add((FIRST_ID + 2) + ",import2,12,,");
+        Path file = Files.write(tempDir.resolve("no-id.csv"), lines, StandardCharsets.UTF_8);
+
+        //when
+        MemberImportResult first = memberCsvImporter.importFile(file);
+        MemberImportResult second = memberCsvImporter.importFile(file);
+
+        //then
+        assertThat(first.getRows()).isEqualTo(2);
+        assertThat(first.getRejected()).isEqualTo(1);
+        assertThat(second.getRows()).isEqualTo(2);
+        assertThat(countImported()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("한 줄이 매핑 단위보다 길면 실패한다")
+    void lineLongerThanChunk() throws IOException {
+        //given
+        StringBuilder longName = new StringBuilder("import");
+        for (int i = 0; i < 5_000; i++) {
+            longName.append('x');
+        }
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add((FIRST_ID + i) + ",import" + i + "," + i + ",,");
+        }
+        lines.add((FIRST_ID + 200) + "," + longName + ",1,,");
+        Path file = Files.write(tempDir.resolve("long.csv"), lines, StandardCharsets.UTF_8);
+
+        //when //then
+        assertThatThrownBy(() -> memberCsvImporter.importFile(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    //10명 중 1명은 팀이 없고, 역할은 비어 있거나 USER/ADMIN 이다
+    private Path writeCsv(int ageOffset, boolean withBadLine) throws IOException {
+        List<String> lines = new ArrayList<>(ROWS + 2);
+        lines.add("member_id,username,age,member_role,team_name");
+        for (int i = 0; i < ROWS; i++) {
+            String teamName = i % 10 == 0 ? "" : "ImportTeam" + (i % 5);
+            String role = i % 3 == 0 ? "" : (i % 3 == 1 ? MemberRole.USER : MemberRole.ADMIN).name();
+            lines.add((FIRST_ID + i) + ",import" + i + "," + (i % 100 + ageOffset) + "," + role + "," + teamName);
+            if (withBadLine && i == ROWS / 2) {
+                lines.add("not,a,member");
+            }
+        }
+        return Files.write(tempDir.resolve("members-" + ageOffset + ".csv"), lines, StandardCharsets.UTF_8);
+    }
+
+    private long countImported() {
+        return queryFactory.selectFrom(member).where(member.normalizedUsername.startsWith("import")).fetchCount();
+    }
+}
@@ -0,0 +1,304 @@
+package study.querydsl.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberChangeType;
+import study.querydsl.domain.Team;
+import study.querydsl.service.MemberBulkService;
+import study.querydsl.service.MemberService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+
+//폴러는 seq 와 offset 을 따로 커밋하므로 테스트 트랜잭션 없이 데이터를 넣고 지운다
+@SpringBootTest(properties = "member.outbox.max-attempts=2")
+class MemberOutboxTest {
+
+    private static final String COUNT_BY_AGGREGATE =
+            "select count(*) from member_outbox where change_type = ? and aggregate_id = ?";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    MemberOutboxPoller memberOutboxPoller;
+
+    @Autowired
+    RecordingSubscriber recordingSubscriber;
+
+    @Autowired
+    FailingSubscriber failingSubscriber;
+
+    Team team;
+    Long memberId;
+
+    @BeforeEach
+    void setEntity() {
+        failingSubscriber.setFailing(false);
+        //다른 테스트가 남긴 변경을 먼저 받아 둔다
+        drain();
+        recordingSubscriber.batches.clear();
+        failingSubscriber.resetCalls();
+        transactionTemplate.executeWithoutResult(status -> {
+            team = new Team("OutboxTeam");
+            em.persist(team);
+            memberId = memberService.join(Member.createMember("outbox1", 10, team));
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        failingSubscriber.setFailing(false);
+        memberBulkService.delete(member.username.startsWith("outbox"));
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Team.class, team.getId())));
+    }
+
+    @Test
+    @DisplayName("회원 저장과 같은 트랜잭션에서 outbox 행이 남는다")
+    void appendInSameTransaction() {
+        //when
+        Integer memberSaved = jdbcTemplate.queryForObject(COUNT_BY_AGGREGATE, Integer.class, "MEMBER_SAVED", memberId);
+        Integer teamSaved = jdbcTemplate.queryForObject(COUNT_BY_AGGREGATE, Integer.class, "TEAM_SAVED", team.getId());
+
+        //then
+        assertThat(memberSaved).isEqualTo(1);
+        assertThat(teamSaved).isPositive();
+    }
+
+    @Test
+    @DisplayName("폴러는 seq 를 매겨 순서대로 발행하고, 발행한 행은 지우지 않는다")
+    void publishBatch() {
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(20));
+        memberService.addAgeInBulk(1);
+
+        //when
+        drain();
+
+        //then
+        List<MemberChangeEvent> events = recordingSubscriber.events();
+        assertThat(events)
+                .filteredOn(event -> memberId.equals(event.getAggregateId()))
+                .extracting(MemberChangeEvent::getChangeType)
+                .containsExactly(MemberChangeType.MEMBER_SAVED, MemberChangeType.MEMBER_SAVED, MemberChangeType.MEMBER_SAVED);
+        assertThat(events).extracting(MemberChangeEvent::getChangeType).contains(MemberChangeType.MEMBERS_BULK_UPDATED);
+        assertThat(events).extracting(MemberChangeEvent::getSeq).isSorted().doesNotHaveDuplicates();
+        assertThat(recordingSubscriber.batches.stream().anyMatch(MemberChangeBatchEvent::hasBulkUpdate)).isTrue();
+        Integer unsequenced = jdbcTemplate.queryForObject(
+                "select count(*) from member_outbox where seq is null and aggregate_id = ?", Integer.class, memberId);
+        assertThat(unsequenced).isZero();
+        //가입, 나이 수정, 벌크 update 가 회원마다 남긴 행
+        assertThat(jdbcTemplate.queryForObject(COUNT_BY_AGGREGATE, Integer.class, "MEMBER_SAVED", memberId)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("consumer 마다 offset 이 따로라 이미 받은 변경은 다시 받지 않는다")
+    void offsetPerConsumer() {
+        //given
+        drain();
+        int received = recordingSubscriber.events().size();
+
+        //when
+        transactionTemplate.executeWithoutResult(status ->
+                memberService.join(Member.createMember("outbox2", 20, em.find(Team.class, team.getId()))));
+        drain();
+
+        //then
+        List<MemberChangeEvent> events = recordingSubscriber.events();
+        assertThat(events.subList(received, events.size()))
+                .extracting(MemberChangeEvent::getChangeType)
+                .contains(MemberChangeType.MEMBER_SAVED)
+                .doesNotContain(MemberChangeType.MEMBERS_BULK_UPDATED);
+        assertThat(offset(recordingSubscriber.getName())).isEqualTo(events.get(events.size() - 1).getSeq());
+    }
+
+    @Test
+    @DisplayName("실패한 구독자만 다시 받고, 재시도 한도를 넘으면 dead letter 로 남기고 넘어간다")
+    void isolateFailingSubscriber() {
+        //given
+        int deadLetters = deadLetters();
+        failingSubscriber.setFailing(true);
+
+        //when
+        memberOutboxPoller.publishPending();
+        memberOutboxPoller.publishPending();
+
+        //then
+        assertThat(failingSubscriber.getCalls()).isEqualTo(2);
+        //다른 구독자는 첫 주기에 받았다
+        assertThat(recordingSubscriber.batches).hasSize(1);
+        assertThat(deadLetters()).isEqualTo(deadLetters + 1);
+    }
+
+    @Test
+    @DisplayName("구독자가 자기 트랜잭션 안에서 실패해도 seq 와 다른 구독자의 offset 은 커밋된다")
+    void failureInsideSubscriberTransaction() {
+        //given
+        failingSubscriber.setFailing(true);
+
+        //when
+        memberOutboxPoller.publishPending();
+
+        //then
+        assertThat(failingSubscriber.getCalls()).isEqualTo(1);
+        List<MemberChangeEvent> events = recordingSubscriber.events();
+        assertThat(events).extracting(MemberChangeEvent::getAggregateId).contains(memberId);
+        assertThat(offset(recordingSubscriber.getName())).isEqualTo(events.get(events.size() - 1).getSeq());
+        Integer attempts = jdbcTemplate.queryForObject(
+                "select attempts from member_outbox_offset where consumer_id = ? and subscriber = ?",
+                Integer.class, memberOutboxPoller.getConsumerId(), failingSubscriber.getName());
+        assertThat(attempts).isEqualTo(1);
+        Integer unsequenced = jdbcTemplate.queryForObject(
+                "select count(*) from member_outbox where seq is null and aggregate_id = ?", Integer.class, memberId);
+        assertThat(unsequenced).isZero();
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 발행 행만 지운다")
+    void purgeExpired() {
+        //given
+        drain();
+        jdbcTemplate.update("update member_outbox set occurred_at = dateadd('DAY', -30, occurred_at) where aggregate_id = ?", memberId);
+        Long newMemberId = transactionTemplate.execute(status ->
+                memberService.join(Member.createMember("outbox3", 30, em.find(Team.class, team.getId()))));
+
+        //when
+        int purged = memberOutboxPoller.purgeExpired();
+
+        //then
+        assertThat(purged).isPositive();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_outbox where aggregate_id = ?", Integer.class, memberId))
+                .isZero();
+        //아직 seq 를 매기지 않은 행은 오래되어도 남는다
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_outbox where aggregate_id = ?", Integer.class, newMemberId))
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("롤백되면 outbox 행도 남지 않는다")
+    void rollbackDiscardsOutbox() {
+        //when
+        Long rolledBackId = transactionTemplate.execute(status -> {
+            Long id = memberService.join(Member.createMember("outbox4", 40, em.find(Team.class, team.getId())));
+            status.setRollbackOnly();
+            return id;
+        });
+
+        //then
+        Integer memberSaved = jdbcTemplate.queryForObject(COUNT_BY_AGGREGATE, Integer.class, "MEMBER_SAVED", rolledBackId);
+        assertThat(memberSaved).isZero();
+    }
+
+    private void drain() {
+        while (memberOutboxPoller.publishPending() > 0) {
+        }
+    }
+
+    private Long offset(String subscriber) {
+        return jdbcTemplate.queryForObject(
+                "select last_seq from member_outbox_offset where consumer_id = ? and subscriber = ?",
+                Long.class, memberOutboxPoller.getConsumerId(), subscriber);
+    }
+
+    private int deadLetters() {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from member_outbox_dead_letter where consumer_id = ? and subscriber = ?",
+                Integer.class, memberOutboxPoller.getConsumerId(), failingSubscriber.getName());
+        return count != null ? count : 0;
+    }
+
+    @TestConfiguration
+    static class SubscriberConfig {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+
+        @Bean
+        FailingSubscriber failingSubscriber() {
+            return new FailingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements MemberChangeSubscriber {
+        final List<MemberChangeBatchEvent> batches = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "test-recording";
+        }
+
+        @Override
+        public void onChanges(MemberChangeBatchEvent batch) {
+            batches.add(batch);
+        }
+
+        List<MemberChangeEvent> events() {
+            return batches.stream().flatMap(batch -> batch.getEvents().stream()).collect(Collectors.toList());
+        }
+    }
+
+    //자기 트랜잭션 안에서 실패한다. 같은 트랜잭션에 묶이면 롤백 표시가 폴러의 커밋까지 실패시킨다.
+    //트랜잭션 프록시로 감싸지므로 상태는 필드 대신 메서드로 다룬다
+    static class FailingSubscriber implements MemberChangeSubscriber {
+        private volatile boolean failing;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public void setFailing(boolean failing) {
+            this.failing = failing;
+        }
+
+        public void resetCalls() {
+            calls.set(0);
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+
+        @Override
+        public String getName() {
+            return "test-failing";
+        }
+
+        @Override
+        @Transactional
+        public void onChanges(MemberChangeBatchEvent batch) {
+            if (!failing) {
+                return;
+            }
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+
+//기본 test 에서는 빠진다. ./gradlew benchmark 로 돌린다
+@Tag("benchmark")
+class FastProjectionsBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    @DisplayName("Projections.bean/fields/constructor, @QueryProjection 대비 속도 비교")
+    void newInstance() {
+        //given
+        FactoryExpression<MemberDto> reflectionBean = Projections.bean(MemberDto.class, member.username, member.age);
+        FactoryExpression<MemberDto> reflectionFields = Projections.fields(MemberDto.class, member.username, member.age);
+        FactoryExpression<MemberDto> constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        FactoryExpression<MemberDto> queryProjection = new QMemberDto(member.username, member.age);
+        FactoryExpression<MemberDto> fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+        FactoryExpression<MemberDto> fastFields = FastProjections.fields(MemberDto.class, member.username, member.age);
+
+        //when, then
+        System.out.println("Projections.bean        = " + measure(reflectionBean) + "ms");
+        System.out.println("Projections.fields      = " + measure(reflectionFields) + "ms");
+        System.out.println("Projections.constructor = " + measure(constructor) + "ms");
+        System.out.println("@QueryProjection        = " + measure(queryProjection) + "ms");
+        System.out.println("FastProjections.bean    = " + measure(fastBean) + "ms");
+        System.out.println("FastProjections.fields  = " + measure(fastFields) + "ms");
+    }
+
+    private long measure(FactoryExpression<MemberDto> projection) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long ageSum = 0;
+            for (int i = 0; i < ROWS; i++) {
+                ageSum += projection.newInstance("member", i).getAge();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            assertThat(ageSum).isPositive();
+        }
+        return best / 1_000_000;
+    }
+}
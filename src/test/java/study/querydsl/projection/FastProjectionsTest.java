@@ -0,0 +1,96 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setEntity() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        Team teamB = new Team("TeamB");
+        em.persist(teamB);
+
+        memberRepository.save(Member.createMember("member1", 10, teamA));
+        memberRepository.save(Member.createMember("member2", 20, teamA));
+        memberRepository.save(Member.createMember("member3", 30, teamB));
+        memberRepository.save(Member.createMember("member4", 40, teamB));
+    }
+
+    @Test
+    @DisplayName("setter 접근자로 별칭 매핑")
+    void beanWithAlias() {
+        //given
+        QMember subMember = new QMember("subMember");
+
+        //when
+        List<UserDto> result = queryFactory
+                .select(FastProjections.bean(
+                        UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(
+                                select(subMember.age.max())
+                                        .from(subMember), "userAge")
+                )).from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        //then
+        assertThat(result).hasSize(4);
+        assertThat(result)
+                .extracting("name")
+                .containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result)
+                .extracting("userAge")
+                .containsOnly(40);
+    }
+
+    @Test
+    @DisplayName("필드 접근자로 매핑")
+    void fields() {
+        //when
+        MemberDto memberDto = queryFactory
+                .select(FastProjections.fields(
+                        MemberDto.class,
+                        member.username,
+                        member.age
+                )).from(member)
+                .where(member.age.eq(30))
+                .fetchOne();
+
+        //then
+        assertThat(memberDto).isEqualTo(new MemberDto("member3", 30));
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.readmodel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.MemberSearchView;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberSearchViewRepository;
+import study.querydsl.service.MemberService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchViewTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberSearchViewRepository memberSearchViewRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberSearchViewWriter memberSearchViewWriter;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Team teamA;
+    Team teamB;
+    Long memberId;
+
+    @BeforeEach
+    void setEntity() {
+        teamA = new Team("ViewTeamA");
+        teamB = new Team("ViewTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        memberId = memberService.join(Member.createMember("view1", 10, teamA));
+        memberService.join(Member.createMember("view2", 20, teamA));
+        Member admin = Member.createMember("view3", 30, teamB);
+        admin.setMemberRole(MemberRole.ADMIN);
+        memberService.join(admin);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("읽기 모델 검색은 member join team 검색과 같은 결과를 낸다")
+    void sameAsJoin() {
+        //given
+        MemberSearchCond teamCond = cond("ViewTeamA", null);
+        MemberSearchCond roleCond = cond(null, MemberRole.ADMIN);
+
+        //when
+        List<MemberTeamDto> byView = memberSearchViewRepository.searchByWhere(teamCond);
+        List<List<MemberTeamDto>> byJoin = memberQueryRepository.searchBatch(List.of(teamCond, roleCond));
+
+        //then
+        assertThat(byView).containsExactlyInAnyOrderElementsOf(byJoin.get(0));
+        assertThat(memberSearchViewRepository.searchByWhere(roleCond)).containsAll(byJoin.get(1));
+    }
+
+    @Test
+    @DisplayName("팀 변경, 팀명 변경, 삭제가 같은 트랜잭션에서 반영된다")
+    void syncOnWrite() {
+        //when
+        Member member = em.find(Member.class, memberId);
+        member.changeTeam(em.find(Team.class, teamB.getId()));
+        em.find(Team.class, teamB.getId()).setName("ViewTeamRenamed");
+        em.flush();
+        em.clear();
+
+        //then
+        MemberSearchView view = em.find(MemberSearchView.class, memberId);
+        assertThat(view.getTeamId()).isEqualTo(teamB.getId());
+        assertThat(view.getTeamName()).isEqualTo("ViewTeamRenamed");
+        assertThat(memberSearchViewRepository.searchByWhere(cond("ViewTeamRenamed", null))).hasSize(2);
+
+        //when
+        em.remove(em.find(Member.class, memberId));
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(em.find(MemberSearchView.class, memberId)).isNull();
+    }
+
+    @Test
+    @DisplayName("flush 전에 조회해도 @Synchronize 로 회원 변경이 먼저 flush 된다")
+    void autoFlushBeforeViewQuery() {
+        //given
+        Team team = em.find(Team.class, teamA.getId());
+
+        //when
+        memberService.join(Member.createMember("view4", 40, team));
+        List<MemberTeamDto> result = memberSearchViewRepository.searchByWhere(cond("ViewTeamA", null));
+
+        //then
+        assertThat(result).extracting("username").contains("view4");
+    }
+
+    @Test
+    @DisplayName("reconcile 은 원본과 어긋난 행을 고치고, 빠진 행을 넣고, 남은 행을 지운다")
+    void reconcile() {
+        //given
+        jdbcTemplate.update("update member_search_view set team_name = 'Stale', age = 99 where member_id = ?", memberId);
+        jdbcTemplate.update("delete from member_search_view where username = 'view2'");
+        jdbcTemplate.update("insert into member_search_view (member_id, username, age) values (-1, 'orphan', 1)");
+
+        //when
+        int fixed = memberSearchViewWriter.reconcile();
+        em.clear();
+
+        //then
+        assertThat(fixed).isGreaterThanOrEqualTo(3);
+        MemberSearchView view = em.find(MemberSearchView.class, memberId);
+        assertThat(view.getTeamName()).isEqualTo("ViewTeamA");
+        assertThat(view.getAge()).isEqualTo(10);
+        assertThat(memberSearchViewRepository.searchByWhere(cond("ViewTeamA", null)))
+                .extracting("username").containsExactlyInAnyOrder("view1", "view2");
+        assertThat(em.find(MemberSearchView.class, -1L)).isNull();
+        assertThat(memberSearchViewWriter.reconcile()).isZero();
+    }
+
+    private MemberSearchCond cond(String teamName, MemberRole memberRole) {
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName(teamName);
+        memberSearchCond.setMemberRole(memberRole);
+        return memberSearchCond;
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberNativeRepositoryTest {
+
+    @Autowired
+    MemberNativeRepository memberNativeRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Team teamB = new Team("teamB");
+        em.persist(teamB);
+
+        memberRepository.save(Member.createMember("member1", 10, teamA));
+        memberRepository.save(Member.createMember("member2", 20, teamA));
+        memberRepository.save(Member.createMember("member3", 30, teamB));
+        memberRepository.save(Member.createMember("member4", 40, teamB));
+        memberRepository.save(Member.createMember("noTeam", 50, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void searchByWhereSameAsQuerydsl() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setAgeGoe(15);
+        memberSearchCond.setTeamName("teamB");
+
+        //when
+        List<MemberTeamDto> result = memberNativeRepository.searchByWhere(memberSearchCond);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(memberQueryRepository.searchByWhere(memberSearchCond));
+        assertThat(result)
+                .extracting("teamName")
+                .containsOnly("teamB");
+    }
+
+    @Test
+    void searchPage() {
+        //when
+        Page<MemberTeamDto> result = memberNativeRepository.searchPageSimple(new MemberSearchCond(), PageRequest.of(1, 2));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member3", "member4");
+    }
+
+    @Test
+    void searchByNormalizedUsername() {
+        //given
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        memberRepository.save(Member.createMember("Member_X", 60, teamC));
+        em.flush();
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setUsername("MEMBER_");
+        memberSearchCond.setUsernameMatch(UsernameMatch.PREFIX);
+
+        //when
+        List<MemberTeamDto> result = memberNativeRepository.searchByWhere(memberSearchCond);
+
+        //then
+        //like 의 _ 는 이스케이프되어 member1 ~ member4 는 걸리지 않는다
+        assertThat(result).extracting("username").containsExactly("Member_X");
+        assertThat(result).containsExactlyInAnyOrderElementsOf(memberQueryRepository.searchByWhere(memberSearchCond));
+    }
+
+    @Test
+    void findSameAsJpa() {
+        //when
+        List<MemberTeamDto> all = memberNativeRepository.findAllQuerydsl();
+        List<MemberTeamDto> noTeam = memberNativeRepository.findByUsernameQuery("noTeam");
+
+        //then
+        assertThat(all).containsExactlyInAnyOrderElementsOf(memberRepository.findAllQuerydsl());
+        assertThat(noTeam).containsExactlyElementsOf(memberRepository.findByUsernameQuery("noTeam"));
+        assertThat(noTeam).extracting("teamId").containsExactly((Object) null);
+    }
+}
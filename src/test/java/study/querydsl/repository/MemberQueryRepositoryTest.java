@@ -0,0 +1,262 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.aggregation.LongIntStatsMap;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.domain.QMember.member;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("BatchTeamA");
+        Team teamB = new Team("BatchTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 20; i++) {
+            Member member = Member.createMember("batch" + i, i * 5, i % 2 == 0 ? teamA : teamB);
+            member.setMemberRole(i % 3 == 0 ? MemberRole.ADMIN : MemberRole.USER);
+            em.persist(member);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("일괄 조회 결과는 조건별 searchByWhere 결과와 같다")
+    void searchBatch() {
+        //given
+        List<MemberSearchCond> conds = new ArrayList<>();
+        conds.add(cond("BatchTeamA", null, null, null, null));
+        conds.add(cond("BatchTeamB", null, null, null, null));
+        conds.add(cond(null, "batch3", null, null, null));
+        conds.add(cond(null, "batch4", null, null, null));
+        conds.add(cond("BatchTeamA", null, 20, 60, null));
+        conds.add(cond("BatchTeamB", null, 30, null, MemberRole.ADMIN));
+        conds.add(cond("BatchTeamA", null, null, null, null));
+        conds.add(cond("NoSuchTeam", null, null, null, null));
+
+        //when
+        List<List<MemberTeamDto>> results = memberQueryRepository.searchBatch(conds);
+
+        //then
+        assertThat(results).hasSize(conds.size());
+        for (int i = 0; i < conds.size(); i++) {
+            assertThat(memberIds(results.get(i))).isEqualTo(memberIds(sorted(memberQueryRepository.searchByWhere(conds.get(i)))));
+        }
+        assertThat(results.get(0)).hasSize(10);
+        assertThat(results.get(2)).extracting("username").containsExactly("batch3");
+        assertThat(results.get(5)).extracting("username").containsExactly("batch9", "batch15");
+        assertThat(results.get(7)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("묶음 크기를 넘는 조건도 모두 조회한다")
+    void searchBatchOverChunk() {
+        //given
+        List<MemberSearchCond> conds = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            conds.add(cond(null, "batch" + (i % 25), null, null, null));
+        }
+
+        //when
+        List<List<MemberTeamDto>> results = memberQueryRepository.searchBatch(conds);
+
+        //then
+        for (int i = 0; i < conds.size(); i++) {
+            assertThat(results.get(i)).hasSize(i % 25 < 20 ? 1 : 0);
+        }
+    }
+
+    @Test
+    @DisplayName("조건 목록에 null 이 있으면 조회하지 않고 거절한다")
+    void searchBatchWithNullCond() {
+        //given
+        List<MemberSearchCond> conds = new ArrayList<>();
+        conds.add(cond(null, "batch0", null, null, null));
+        conds.add(null);
+
+        //when then
+        assertThatThrownBy(() -> memberQueryRepository.searchBatch(conds))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("fields 로 고른 컬럼만 요청 순서대로 담는다")
+    void searchFields() {
+        //given
+        MemberSearchCond memberSearchCond = cond("BatchTeamA", null, 80, null, null);
+
+        //when
+        List<Map<String, Object>> rows = memberQueryRepository.searchFields(memberSearchCond,
+                MemberField.parse("username,teamName,age"));
+
+        //then
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).keySet()).containsExactly("username", "teamName", "age");
+        assertThat(rows).extracting(row -> row.get("teamName")).containsOnly("BatchTeamA");
+    }
+
+    @Test
+    @DisplayName("팀 필드와 팀명 조건이 없으면 team 조인 없이 외래키로 teamId 를 읽는다")
+    void searchFieldsWithoutTeamJoin() {
+        //given
+        MemberSearchCond memberSearchCond = cond(null, null, null, null, MemberRole.ADMIN);
+        em.persist(new Member("batchNoTeam", MemberRole.ADMIN));
+        em.flush();
+
+        //when
+        List<Map<String, Object>> rows = memberQueryRepository.searchFields(memberSearchCond,
+                MemberField.parse("memberId,teamId,memberId"));
+        List<MemberTeamDto> expected = memberQueryRepository.searchByWhere(memberSearchCond);
+
+        //then
+        assertThat(rows.get(0).keySet()).containsExactly("memberId", "teamId");
+        assertThat(rows).extracting(row -> row.get("memberId"))
+                .containsExactlyInAnyOrderElementsOf(memberIds(expected));
+        assertThat(rows).extracting(row -> row.get("teamId")).doesNotContainNull();
+    }
+
+    @Test
+    @DisplayName("username 은 정규화 컬럼으로 대소문자, 앞뒤 공백 없이 비교하고 접두어로도 찾는다")
+    void searchByNormalizedUsername() {
+        //given
+        MemberSearchCond ignoreCase = cond(null, " BATCH1 ", null, null, null);
+        ignoreCase.setUsernameMatch(UsernameMatch.IGNORE_CASE);
+        MemberSearchCond prefix = cond(null, "Batch1", null, null, null);
+        prefix.setUsernameMatch(UsernameMatch.PREFIX);
+        MemberSearchCond exact = cond(null, "BATCH1", null, null, null);
+
+        //when
+        List<MemberTeamDto> ignoreCaseResult = memberQueryRepository.searchByWhere(ignoreCase);
+        List<MemberTeamDto> prefixResult = memberQueryRepository.searchByWhere(prefix);
+        List<MemberTeamDto> exactResult = memberQueryRepository.searchByWhere(exact);
+
+        //then
+        assertThat(ignoreCaseResult).extracting("username").containsExactly("batch1");
+        assertThat(prefixResult).extracting("username").hasSize(11).allMatch(name -> ((String) name).startsWith("batch1"));
+        assertThat(exactResult).isEmpty();
+    }
+
+    @Test
+    @DisplayName("username 비교 방식이 섞인 일괄 조회도 조건별 searchByWhere 결과와 같다")
+    void searchBatchWithUsernameMatch() {
+        //given
+        List<MemberSearchCond> conds = new ArrayList<>();
+        for (String username : new String[]{"BATCH2", "batch3", "Batch1"}) {
+            for (UsernameMatch usernameMatch : UsernameMatch.values()) {
+                MemberSearchCond memberSearchCond = cond(null, username, null, null, null);
+                memberSearchCond.setUsernameMatch(usernameMatch);
+                conds.add(memberSearchCond);
+            }
+        }
+
+        //when
+        List<List<MemberTeamDto>> results = memberQueryRepository.searchBatch(conds);
+
+        //then
+        for (int i = 0; i < conds.size(); i++) {
+            assertThat(memberIds(results.get(i))).isEqualTo(memberIds(sorted(memberQueryRepository.searchByWhere(conds.get(i)))));
+        }
+        assertThat(results.get(1)).extracting("username").containsExactly("batch2");
+        assertThat(results.get(8)).hasSize(11);
+    }
+
+    @Test
+    @DisplayName("팀별 나이 집계는 group by 로 계산한 count/sum/min/max 와 같다")
+    void ageStatsByTeam() {
+        //given
+        List<MemberSearchCond> conds = List.of(
+                cond(null, null, 10, null, null),
+                cond("BatchTeamB", null, null, 70, MemberRole.ADMIN),
+                cond("NoSuchTeam", null, null, null, null));
+
+        for (MemberSearchCond memberSearchCond : conds) {
+            //when
+            LongIntStatsMap stats = memberQueryRepository.ageStatsByTeam(memberSearchCond);
+            List<Tuple> grouped = queryFactory
+                    .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(member)
+                    .join(member.team, team)
+                    .where(
+                            memberSearchCond.getTeamName() != null ? team.name.eq(memberSearchCond.getTeamName()) : null,
+                            memberSearchCond.getAgeGoe() != null ? member.age.goe(memberSearchCond.getAgeGoe()) : null,
+                            memberSearchCond.getAgeLoe() != null ? member.age.loe(memberSearchCond.getAgeLoe()) : null,
+                            memberSearchCond.getMemberRole() != null ? member.memberRole.eq(memberSearchCond.getMemberRole()) : null
+                    )
+                    .groupBy(team.id)
+                    .fetch();
+
+            //then
+            assertThat(stats.size()).isEqualTo(grouped.size());
+            for (Tuple tuple : grouped) {
+                long teamId = tuple.get(team.id);
+                assertThat(stats.count(teamId)).isEqualTo(tuple.get(member.count()));
+                assertThat(stats.sum(teamId)).isEqualTo(tuple.get(member.age.sum()).longValue());
+                assertThat(stats.min(teamId)).isEqualTo(tuple.get(member.age.min()));
+                assertThat(stats.max(teamId)).isEqualTo(tuple.get(member.age.max()));
+            }
+        }
+        //BatchTeamB 의 ADMIN 은 batch3, batch9, batch15 (15 + 45 + 75 중 70 이하)
+        LongIntStatsMap adminStats = memberQueryRepository.ageStatsByTeam(conds.get(1));
+        assertThat(adminStats.size()).isEqualTo(1);
+        assertThat(adminStats.sum(adminStats.keys()[0])).isEqualTo(60);
+        assertThat(memberQueryRepository.ageStatsByTeam(conds.get(2)).size()).isZero();
+    }
+
+    private MemberSearchCond cond(String teamName, String username, Integer ageGoe, Integer ageLoe, MemberRole memberRole) {
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName(teamName);
+        memberSearchCond.setUsername(username);
+        memberSearchCond.setAgeGoe(ageGoe);
+        memberSearchCond.setAgeLoe(ageLoe);
+        memberSearchCond.setMemberRole(memberRole);
+        return memberSearchCond;
+    }
+
+    private List<MemberTeamDto> sorted(List<MemberTeamDto> members) {
+        members.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return members;
+    }
+
+    private List<Long> memberIds(List<MemberTeamDto> members) {
+        return members.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    void setEntity() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Team teamB = new Team("teamB");
+        em.persist(teamB);
+
+        memberRepository.save(Member.createMember("member1", 10, teamA));
+        memberRepository.save(Member.createMember("member2", 20, teamA));
+        memberRepository.save(Member.createMember("member3", 30, teamB));
+        memberRepository.save(Member.createMember("member4", 40, teamB));
+        memberRepository.save(Member.createMember("noTeam", 50, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findAllAndByUsername() {
+        //when
+        List<MemberTeamDto> all = memberSqlRepository.findAllQuerydsl();
+        List<MemberTeamDto> noTeam = memberSqlRepository.findByUsernameQuery("noTeam");
+
+        //then
+        assertThat(all).containsExactlyInAnyOrderElementsOf(memberRepository.findAllQuerydsl());
+        assertThat(noTeam).hasSize(1);
+        assertThat(noTeam.get(0).getTeamId()).isNull();
+    }
+
+    @Test
+    void searchByWhere() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setAgeGoe(20);
+        memberSearchCond.setTeamName("teamA");
+        memberSearchCond.setAgeLoe(40);
+
+        //when
+        List<MemberTeamDto> result = memberSqlRepository.searchByWhere(memberSearchCond);
+
+        //then
+        assertThat(result)
+                .extracting("username")
+                .containsExactly("member2");
+    }
+
+    @Test
+    void searchPageComplex() {
+        //when
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(new MemberSearchCond(), PageRequest.of(1, 2));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent())
+                .extracting("username")
+                .containsExactly("member3", "member4");
+        assertThat(result.isLast()).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void setEntity() {
+        //팀마다 회원 수가 달라야 fetch join 행 수와 팀 수가 어긋난다
+        for (int i = 0; i < 5; i++) {
+            Team pagedTeam = new Team("PagedTeam" + i);
+            em.persist(pagedTeam);
+            for (int j = 0; j <= i; j++) {
+                em.persist(Member.createMember("paged" + i + "_" + j, j, pagedTeam));
+            }
+            teamIds.add(pagedTeam.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("team id 로 페이지를 자른 뒤 회원을 fetch join 하므로 페이지 크기만큼 팀이 오고 회원도 모두 로딩된다")
+    void findPageWithMembers() {
+        //given
+        List<Long> allTeamIds = queryFactory.select(team.id).from(team).orderBy(team.id.asc()).fetch();
+
+        //when
+        Page<Team> page = teamRepository.findPageWithMembers(PageRequest.of(1, 2));
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(allTeamIds.size());
+        assertThat(page.getContent()).extracting(Team::getId).containsExactlyElementsOf(allTeamIds.subList(2, 4));
+        for (Team findTeam : page.getContent()) {
+            assertThat(emf.getPersistenceUnitUtil().isLoaded(findTeam, "members")).as("회원 fetch join").isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("keyset 으로 이어 읽으면 팀이 빠지거나 겹치지 않는다")
+    void findWithMembersAfter() {
+        //given
+        Long before = teamIds.get(0) - 1;
+
+        //when
+        List<Team> first = teamRepository.findWithMembersAfter(before, 3);
+        List<Team> second = teamRepository.findWithMembersAfter(first.get(first.size() - 1).getId(), 3);
+
+        //then
+        List<Team> paged = new ArrayList<>(first);
+        paged.addAll(second);
+        List<Team> created = paged.stream()
+                .filter(findTeam -> teamIds.contains(findTeam.getId()))
+                .collect(Collectors.toList());
+        assertThat(created).extracting(Team::getId).containsExactlyElementsOf(teamIds);
+        assertThat(created).extracting(findTeam -> findTeam.getMembers().size()).containsExactly(1, 2, 3, 4, 5);
+        assertThat(created.get(4).getMembers()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("paged4_0", "paged4_1", "paged4_2", "paged4_3", "paged4_4");
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberBulkProgress;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.domain.QMember.member;
+
+//묶음마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 데이터를 넣고 지운다
+@SpringBootTest
+class MemberBulkServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    MemberService memberService;
+
+    Long teamId;
+
+    @BeforeEach
+    void setEntity() {
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("BulkTeam");
+            em.persist(team);
+            for (int i = 0; i < 25; i++) {
+                em.persist(Member.createMember("bulk" + i, i, team));
+            }
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        memberBulkService.delete(member.username.startsWith("bulk"));
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+    }
+
+    @Test
+    @DisplayName("update 는 id 구간 묶음마다 커밋하고 진행 상황을 알린다")
+    void updateInChunks() {
+        //given
+        List<MemberBulkProgress> progresses = new ArrayList<>();
+
+        //when
+        MemberBulkProgress result = memberBulkService.update(
+                member.username.startsWith("bulk").and(member.age.lt(20)),
+                update -> update.set(member.age, member.age.add(100)),
+                10, progresses::add);
+
+        //then
+        assertThat(result.getRows()).isEqualTo(20);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getRowsPerSecond()).isPositive();
+        assertThat(progresses).extracting(MemberBulkProgress::getRows).containsExactly(10L, 20L, 20L);
+        assertThat(queryFactory.selectFrom(member).where(member.username.startsWith("bulk"), member.age.goe(100)).fetch())
+                .hasSize(20);
+    }
+
+    @Test
+    @DisplayName("커밋된 묶음의 회원은 호출자의 영속성 컨텍스트에서 내려가 다시 읽으면 새 값이 보인다")
+    void evictFromPersistenceContext() {
+        transactionTemplate.executeWithoutResult(status -> {
+            //given
+            Member managed = queryFactory.selectFrom(member).where(member.username.eq("bulk3")).fetchOne();
+
+            //when
+            memberBulkService.update(member.username.eq("bulk3"), update -> update.set(member.age, 300));
+
+            //then
+            assertThat(em.contains(managed)).isFalse();
+            assertThat(em.find(Member.class, managed.getId()).getAge()).isEqualTo(300);
+        });
+    }
+
+    @Test
+    @DisplayName("전체 나이 증가도 묶음 update 로 돌아 읽기 모델, 팀 집계, 회원마다의 outbox 행에 반영된다")
+    void addAgeInBulk() {
+        //when
+        int count = memberService.addAgeInBulk(1);
+
+        //then
+        assertThat(count).isGreaterThanOrEqualTo(25);
+        Team team = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+        assertThat(team.getAgeSum()).isEqualTo(325);
+        assertThat(team.getAgeMin()).isEqualTo(1);
+        assertThat(team.getAgeMax()).isEqualTo(25);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member_search_view where username = 'bulk0' and age = 1", Long.class))
+                .isEqualTo(1);
+        //가입 때 한 행, 벌크 update 때 한 행
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member_outbox where change_type = 'MEMBER_SAVED'" +
+                " and aggregate_id in (select member_id from member where username like 'bulk%')", Long.class))
+                .isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("delete 는 읽기 모델에서도 같은 회원을 지운다")
+    void deleteInChunks() {
+        //when
+        MemberBulkProgress result = memberBulkService.delete(
+                member.username.startsWith("bulk").and(member.age.goe(20)), 2, progress -> {
+                });
+
+        //then
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(queryFactory.selectFrom(member).where(member.username.startsWith("bulk")).fetch()).hasSize(20);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member_search_view where username like 'bulk%' and age >= 20", Long.class))
+                .isZero();
+    }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.MemberChangesResponse;
+import study.querydsl.outbox.MemberOutboxSequencer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberChangeFeedServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberChangeFeedService memberChangeFeedService;
+
+    @Autowired
+    MemberService memberService;
+
+    //테스트에서는 폴러가 돌지 않으므로 직접 seq 를 매긴다
+    @Autowired
+    MemberOutboxSequencer memberOutboxSequencer;
+
+    long start;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void setEntity() {
+        sequence();
+        start = memberOutboxSequencer.lastSeq();
+
+        Team team = new Team("FeedTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            memberIds.add(memberService.join(Member.createMember("feed" + i, 10 + i, team)));
+        }
+        em.flush();
+        em.clear();
+        sequence();
+    }
+
+    @Test
+    @DisplayName("since 이후 변경을 seq 순서로 끊어 이어받는다")
+    void pageThroughChanges() {
+        //given
+        List<MemberChangeDto> received = new ArrayList<>();
+        long since = start;
+        int pages = 0;
+
+        //when
+        MemberChangesResponse response;
+        do {
+            response = memberChangeFeedService.findChanges(since, 2);
+            received.addAll(response.getChanges());
+            since = response.getNextSeq();
+            pages++;
+        } while (response.isHasMore());
+
+        //then
+        assertThat(pages).isEqualTo(3);
+        assertThat(received).extracting("memberId").containsExactlyElementsOf(memberIds);
+        assertThat(received).extracting("seq").isSorted();
+        assertThat(memberChangeFeedService.findChanges(since, 2).getChanges()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("수정된 회원만 다음 seq 이후에 지금 상태로 다시 나온다")
+    void changedAfterSeq() {
+        //given
+        long since = memberChangeFeedService.findChanges(start, 100).getNextSeq();
+
+        //when
+        Member member = em.find(Member.class, memberIds.get(2));
+        member.setAge(99);
+        em.flush();
+        sequence();
+        MemberChangesResponse response = memberChangeFeedService.findChanges(since, 100);
+
+        //then
+        assertThat(response.getChanges()).extracting("memberId").containsExactly(memberIds.get(2));
+        assertThat(response.getChanges().get(0).getAge()).isEqualTo(99);
+        assertThat(response.isHasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("seq 를 매기기 전의 변경은 내려주지 않고, 매긴 뒤에는 지나간 since 뒤에 나온다")
+    void unsequencedChangeWaits() {
+        //given
+        long since = memberChangeFeedService.findChanges(start, 100).getNextSeq();
+        Member member = em.find(Member.class, memberIds.get(0));
+        member.setAge(50);
+        em.flush();
+
+        //when
+        MemberChangesResponse before = memberChangeFeedService.findChanges(since, 100);
+        sequence();
+        MemberChangesResponse after = memberChangeFeedService.findChanges(before.getNextSeq(), 100);
+
+        //then
+        assertThat(before.getChanges()).isEmpty();
+        assertThat(before.getNextSeq()).isEqualTo(since);
+        assertThat(after.getChanges()).extracting("memberId").containsExactly(memberIds.get(0));
+    }
+
+    @Test
+    @DisplayName("삭제된 회원은 tombstone 으로 나온다")
+    void removedAsTombstone() {
+        //given
+        long since = memberChangeFeedService.findChanges(start, 100).getNextSeq();
+
+        //when
+        em.remove(em.find(Member.class, memberIds.get(1)));
+        em.flush();
+        sequence();
+        MemberChangesResponse response = memberChangeFeedService.findChanges(since, 100);
+
+        //then
+        assertThat(response.getChanges()).hasSize(1);
+        MemberChangeDto tombstone = response.getChanges().get(0);
+        assertThat(tombstone.getMemberId()).isEqualTo(memberIds.get(1));
+        assertThat(tombstone.isDeleted()).isTrue();
+        assertThat(tombstone.getUsername()).isNull();
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지나 지워진 구간부터는 이어받을 수 없다")
+    void expiredSince() {
+        //given
+        jdbcTemplate.update("delete from member_outbox where seq <= ?", start + 2);
+
+        //when, then
+        assertThatThrownBy(() -> memberChangeFeedService.findChanges(start + 1, 100))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void sequence() {
+        while (memberOutboxSequencer.assignSequence(1000) > 0) {
+        }
+    }
+}
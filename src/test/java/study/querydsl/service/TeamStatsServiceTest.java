@@ -0,0 +1,169 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamStatsServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void setEntity() {
+        teamA = new Team("TeamA");
+        em.persist(teamA);
+        teamB = new Team("TeamB");
+        em.persist(teamB);
+
+        memberService.join(Member.createMember("member1", 10, teamA));
+        memberService.join(Member.createMember("member2", 20, teamA));
+        memberService.join(Member.createMember("member3", 30, teamB));
+        memberService.join(Member.createMember("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("가입 시 팀 집계 컬럼이 증분 갱신된다")
+    void joinUpdatesStats() {
+        //when
+        Team findTeam = em.find(Team.class, teamA.getId());
+
+        //then
+        assertThat(findTeam.getMemberCount()).isEqualTo(2);
+        assertThat(findTeam.getAgeSum()).isEqualTo(30);
+        assertThat(findTeam.getAgeMin()).isEqualTo(10);
+        assertThat(findTeam.getAgeMax()).isEqualTo(20);
+        assertThat(findTeam.getAgeAvg()).isEqualTo(15);
+    }
+
+    @Test
+    @DisplayName("팀 이동과 나이 변경이 두 팀 모두에 반영된다")
+    void changeTeamAndAge() {
+        //given
+        Member member1 = memberRepository.findByUsername("member1").get(0);
+        Team findTeamB = em.find(Team.class, teamB.getId());
+
+        //when
+        member1.changeTeam(findTeamB);
+        member1.setAge(50);
+        em.flush();
+        em.clear();
+
+        //then
+        Team findTeamA = em.find(Team.class, teamA.getId());
+        assertThat(findTeamA.getMemberCount()).isEqualTo(1);
+        assertThat(findTeamA.getAgeSum()).isEqualTo(20);
+
+        findTeamB = em.find(Team.class, teamB.getId());
+        assertThat(findTeamB.getMemberCount()).isEqualTo(3);
+        assertThat(findTeamB.getAgeSum()).isEqualTo(120);
+        assertThat(findTeamB.getAgeMax()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("집계를 거치지 않은 벌크 삭제는 재집계로 바로잡는다")
+    void reconcileAfterBulkDelete() {
+        //given
+        em.createQuery("delete from Member m where m.age >= 30").executeUpdate();
+        em.clear();
+
+        //when
+        int fixed = teamStatsService.reconcile();
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(fixed).isEqualTo(1);
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        assertThat(findTeamB.getMemberCount()).isEqualTo(0);
+        assertThat(findTeamB.getAgeMin()).isNull();
+    }
+
+    @Test
+    @DisplayName("팀 이동은 이전 팀과 그 회원 컬렉션을 읽지 않는다")
+    void changeTeamDoesNotLoadOldTeamMembers() {
+        //given
+        Member member1 = memberRepository.findByUsername("member1").get(0);
+        Team oldTeam = member1.getTeam();
+
+        //when
+        member1.changeTeam(em.find(Team.class, teamB.getId()));
+        em.flush();
+
+        //then
+        assertThat(emf.getPersistenceUnitUtil().isLoaded(oldTeam)).isFalse();
+        em.clear();
+        assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("회원 삭제도 팀 집계에서 빠진다")
+    void removeUpdatesStats() {
+        //given
+        Member member4 = memberRepository.findByUsername("member4").get(0);
+
+        //when
+        memberRepository.delete(member4);
+        em.flush();
+        em.clear();
+
+        //then
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        assertThat(findTeamB.getMemberCount()).isEqualTo(1);
+        assertThat(findTeamB.getAgeSum()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("팀명만으로 조회해도 페이지 total 은 회원을 직접 센다")
+    void teamNameOnlyCount() {
+        //given
+        em.createQuery("delete from Member m where m.username = 'member2'").executeUpdate();
+        em.clear();
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setTeamName("TeamA");
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(memberSearchCond, PageRequest.of(0, 1));
+
+        //then
+        //집계 컬럼은 아직 재집계 전이라 2 지만 total 은 실제 회원 수다
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).hasSize(1);
+    }
+}
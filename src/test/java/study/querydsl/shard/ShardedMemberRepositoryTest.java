@@ -0,0 +1,145 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.domain.MemberRole;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.ShardedMemberRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+//샤드는 서로 다른 H2 메모리 DB 세 개
+@SpringBootTest(properties = {
+        "member.sharding.enabled=true",
+        "member.sharding.urls=jdbc:h2:mem:member_shard_0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:member_shard_1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:member_shard_2;DB_CLOSE_DELAY=-1"
+})
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    MemberShards memberShards;
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void setEntity() {
+        //샤드 DB 는 스프링 트랜잭션 밖이라 직접 비운다
+        for (MemberShards.Shard shard : memberShards.all()) {
+            shard.getQueryFactory().delete(member).execute();
+            shard.getQueryFactory().delete(team).execute();
+        }
+
+        for (int t = 0; t < 30; t++) {
+            teamIds.add(shardedMemberRepository.saveTeam("shardTeam" + t));
+        }
+        for (int i = 0; i < 120; i++) {
+            shardedMemberRepository.saveMember("shardMember" + i, i % 60, i % 7 == 0 ? MemberRole.ADMIN : MemberRole.USER,
+                    teamIds.get(i % teamIds.size()));
+        }
+        shardedMemberRepository.saveMember("noTeam", 30, MemberRole.USER, null);
+    }
+
+    @Test
+    @DisplayName("회원은 팀의 샤드에만 있고, 팀은 모든 샤드에 있다")
+    void partitionByTeam() {
+        //when
+        List<Long> memberCounts = memberShards.all().stream()
+                .map(shard -> shard.getQueryFactory().select(member.memberId.count()).from(member).fetchOne())
+                .collect(Collectors.toList());
+
+        //then
+        assertThat(memberCounts.stream().mapToLong(Long::longValue).sum()).isEqualTo(121);
+        assertThat(memberCounts).allMatch(count -> count > 0);
+        for (MemberShards.Shard shard : memberShards.all()) {
+            assertThat(shard.getQueryFactory().select(team.teamId.count()).from(team).fetchOne()).isEqualTo(30);
+            List<Long> teamsOnShard = shard.getQueryFactory().selectDistinct(member.teamId).from(member)
+                    .where(member.teamId.isNotNull()).fetch();
+            assertThat(teamsOnShard).allMatch(teamId -> memberShards.shardFor(teamId) == shard);
+        }
+    }
+
+    @Test
+    @DisplayName("일부 샤드에만 들어간 팀은 같은 teamId 로 다시 저장하면 모든 샤드에 한 행씩 맞춰진다")
+    void saveTeamAgain() {
+        //given
+        Long teamId = teamIds.get(0);
+        memberShards.all().get(1).getQueryFactory().delete(team).where(team.teamId.eq(teamId)).execute();
+
+        //when
+        shardedMemberRepository.saveTeam(teamId, "renamedTeam");
+        shardedMemberRepository.saveTeam(teamId, "renamedTeam");
+
+        //then
+        for (MemberShards.Shard shard : memberShards.all()) {
+            assertThat(shard.getQueryFactory().select(team.name).from(team).where(team.teamId.eq(teamId)).fetch())
+                    .containsExactly("renamedTeam");
+        }
+    }
+
+    @Test
+    @DisplayName("팀을 알면 그 샤드에서, 모르면 모든 샤드에서 찾는다")
+    void findOne() {
+        //given
+        Long teamId = teamIds.get(3);
+        MemberTeamDto first = shardedMemberRepository.findByTeam(teamId).get(0);
+
+        //when
+        MemberTeamDto routed = shardedMemberRepository.findOne(first.getMemberId(), teamId).orElseThrow();
+        MemberTeamDto scattered = shardedMemberRepository.findOne(first.getMemberId()).orElseThrow();
+
+        //then
+        assertThat(shardedMemberRepository.findByTeam(teamId)).hasSize(4).extracting("teamName").containsOnly("shardTeam3");
+        assertThat(routed).isEqualTo(first);
+        assertThat(scattered).isEqualTo(first);
+        assertThat(shardedMemberRepository.findOne(-1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("scatter-gather 페이지는 모든 샤드를 합쳐 member id 순으로 자른 것과 같다")
+    void searchPage() {
+        //given
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setAgeGoe(10);
+        memberSearchCond.setMemberRole(MemberRole.USER);
+        List<MemberTeamDto> expected = allMatching(memberSearchCond);
+
+        for (int page = 0; page * 7 < expected.size() + 7; page++) {
+            //when
+            Page<MemberTeamDto> result = shardedMemberRepository.searchPage(memberSearchCond, PageRequest.of(page, 7));
+
+            //then
+            int from = Math.min(page * 7, expected.size());
+            assertThat(result.getTotalElements()).isEqualTo(expected.size());
+            assertThat(result.getContent()).containsExactlyElementsOf(expected.subList(from, Math.min(from + 7, expected.size())));
+        }
+    }
+
+    private List<MemberTeamDto> allMatching(MemberSearchCond memberSearchCond) {
+        List<MemberTeamDto> all = new ArrayList<>();
+        for (Long teamId : teamIds) {
+            all.addAll(shardedMemberRepository.findByTeam(teamId));
+        }
+        return all.stream()
+                .filter(memberTeamDto -> memberTeamDto.getAge() >= memberSearchCond.getAgeGoe())
+                .filter(memberTeamDto -> Integer.parseInt(memberTeamDto.getUsername().substring("shardMember".length())) % 7 != 0)
+                .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+    }
+}